@@ -0,0 +1,90 @@
+package it.polito.extgol.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.GameRepository;
+import it.polito.extgol.JPAUtil;
+
+/**
+ * Latency of ExtendedGameOfLife.saveGame for a freshly created large game,
+ * that is a board of size * size tiles and cells with its initial
+ * generation, with and without JDBC batching.
+ *
+ * batchSize overrides hibernate.jdbc.batch_size before the persistence unit
+ * is built: 1 turns batching off, so every row is sent on its own, while
+ * 100 is the value of persistence.xml. In both cases ids come from the
+ * pooled sequences, which is what makes batching possible at all; with
+ * identity columns every insert was executed at once regardless of the
+ * batch size. HibernateStatisticsProfiler shows the gap in sql.statements.
+ * Every saved game is deleted again after its invocation, outside the
+ * measured region and the counts, so that the database does not grow with
+ * the run and both batch sizes insert into tables of the same size.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g",
+        "-Dhibernate.show_sql=false", "-Dhibernate.format_sql=false"})
+public class BatchInsertBenchmark {
+
+    @Param({"128", "256"})
+    public int size;
+
+    @Param({"1", "100"})
+    public String batchSize;
+
+    private final ExtendedGameOfLife facade = new ExtendedGameOfLife();
+    private final GameRepository repository = new GameRepository();
+
+    /** Unsaved game consumed by saveGame. */
+    private Game fresh;
+
+    private int saved;
+
+    @Setup(Level.Trial)
+    public void configure() {
+        System.setProperty("hibernate.jdbc.batch_size", batchSize);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        fresh = GameFixtures.seeded("fresh-" + saved++, size, 0.3, "MIXED", "MIXED");
+    }
+
+    @Benchmark
+    public Game saveGame() {
+        facade.saveGame(fresh);
+        return fresh;
+    }
+
+    @TearDown(Level.Invocation)
+    public void remove() {
+        if (fresh.getId() != null) {
+            HibernateStatisticsProfiler.uncounted(() -> repository.deleteAllById(List.of(fresh.getId())));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        JPAUtil.close();
+    }
+}
@@ -0,0 +1,32 @@
+package it.polito.extgol.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar.
+ *
+ * Accepts the usual JMH command line (benchmark regexp, -p, -f, -wi, ...)
+ * and always attaches the GC profiler, so every result reports the
+ * allocation rate (gc.alloc.rate.norm) next to the throughput, as well as
+ * the Hibernate statistics profiler, which adds the SQL cost per operation
+ * to the persistence benchmarks.
+ */
+public final class BenchmarkMain {
+
+    private BenchmarkMain() {} // entry point only
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions cmd = new CommandLineOptions(args);
+        new Runner(new OptionsBuilder()
+                .parent(cmd)
+                .addProfiler(GCProfiler.class)
+                .addProfiler(HibernateStatisticsProfiler.class)
+                .build())
+            .run();
+    }
+}
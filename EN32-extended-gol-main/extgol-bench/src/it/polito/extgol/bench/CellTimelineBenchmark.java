@@ -0,0 +1,145 @@
+package it.polito.extgol.bench;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.extgol.Cell;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.GameRepository;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+
+/**
+ * Latency of reading the history of one cell: GameRepository.cellTimeline,
+ * one native query over generation_state and generation_energy, against
+ * loading the whole game and looking the cell up in every generation.
+ *
+ * With indexes false the (cell_id, generation_id) and cell_coord_idx
+ * indexes are dropped before measuring, so the query falls back to scanning
+ * the state tables. At the end of each trial H2's query statistics (average
+ * time and rows per statement) and the EXPLAIN ANALYZE plan of the timeline
+ * query are printed, showing which index each table is read through and how
+ * many rows it scans.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g",
+        "-Dhibernate.show_sql=false", "-Dhibernate.format_sql=false"})
+public class CellTimelineBenchmark {
+
+    private static final List<String> INDEXES =
+            List.of("cell_coord_idx", "generation_state_cell_idx", "generation_energy_cell_idx");
+
+    @Param({"64"})
+    public int size;
+
+    @Param({"100", "400"})
+    public int generations;
+
+    @Param({"true", "false"})
+    public boolean indexes;
+
+    private final GameRepository repository = new GameRepository();
+
+    private Long storedId;
+    private int x;
+    private int y;
+
+    @Setup(Level.Trial)
+    public void store() {
+        ExtendedGameOfLife facade = new ExtendedGameOfLife();
+        // a second game doubles the rows a scan has to skip
+        for (String name : List.of("other", "stored")) {
+            Game game = GameFixtures.seeded(name, size, 0.3, "MIXED", "MIXED");
+            facade.run(game, generations);
+            facade.saveGame(game);
+            storedId = game.getId();
+        }
+        x = size / 2;
+        y = size / 2;
+        JPAUtil.inTransaction(em -> {
+            if (!indexes) {
+                for (String index : INDEXES) {
+                    em.createNativeQuery("DROP INDEX IF EXISTS " + index).executeUpdate();
+                }
+            }
+            em.createNativeQuery("SET QUERY_STATISTICS TRUE").executeUpdate();
+        });
+    }
+
+    @Benchmark
+    public GameRepository.CellTimeline timeline() {
+        return repository.cellTimeline(storedId, x, y);
+    }
+
+    @Benchmark
+    public int[] loadTimeline() {
+        Game game = repository.load(storedId);
+        Cell cell = game.getBoard().getTile(new Coord(x, y)).getCell();
+        int[] lifePoints = new int[game.getGenerations().size()];
+        for (Generation gen : game.getGenerations()) {
+            lifePoints[gen.getStep()] = gen.getEnergyStates().get(cell);
+        }
+        return lifePoints;
+    }
+
+    @TearDown(Level.Trial)
+    public void report() {
+        JPAUtil.inTransaction(em -> {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = em.createNativeQuery(
+                    "SELECT AVERAGE_EXECUTION_TIME, AVERAGE_ROW_COUNT, EXECUTION_COUNT, SQL_STATEMENT"
+                    + " FROM INFORMATION_SCHEMA.QUERY_STATISTICS"
+                    + " ORDER BY CUMULATIVE_EXECUTION_TIME DESC LIMIT 5").getResultList();
+            System.out.println();
+            System.out.println("avg ms     avg rows   executions  statement");
+            String timelineSql = null;
+            for (Object[] row : rows) {
+                String sql = row[3].toString();
+                System.out.printf("%-10.3f %-10.0f %-11s %s%n", ((Number) row[0]).doubleValue(),
+                        ((Number) row[1]).doubleValue(), row[2], sql.replaceAll("\\s+", " "));
+                if (timelineSql == null && sql.contains("generation_state") && sql.contains("cell_x")) {
+                    timelineSql = sql;
+                }
+            }
+            if (timelineSql != null) {
+                String explained = "EXPLAIN ANALYZE " + timelineSql;
+                em.unwrap(Session.class).doWork(connection -> {
+                    try (PreparedStatement plan = connection.prepareStatement(explained)) {
+                        plan.setLong(1, storedId);
+                        plan.setInt(2, x);
+                        plan.setInt(3, y);
+                        try (ResultSet rs = plan.executeQuery()) {
+                            while (rs.next()) {
+                                System.out.println(rs.getString(1));
+                            }
+                        }
+                    }
+                });
+            }
+        });
+        JPAUtil.close();
+    }
+}
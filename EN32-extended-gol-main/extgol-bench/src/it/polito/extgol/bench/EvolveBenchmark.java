@@ -0,0 +1,79 @@
+package it.polito.extgol.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+
+/**
+ * Throughput of a single ExtendedGameOfLife.evolve step, in generations per
+ * second.
+ *
+ * Each evolve step appends a generation, holding a snapshot of every cell,
+ * to the game's history. Outside the measured region, once the history
+ * reaches HISTORY generations it is replaced by a step 0 snapshot of the
+ * current board, so the board keeps evolving from where it was while the
+ * heap stays bounded. Boards of 4096 are supported via -p size=4096 but need
+ * a large heap (-jvmArgsAppend -Xmx16g).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class EvolveBenchmark {
+
+    @Param({"64", "256", "1024"})
+    public int size;
+
+    @Param({"0.15", "0.5"})
+    public double density;
+
+    @Param({"BASIC", "MIXED"})
+    public String typeMix;
+
+    @Param({"NAIVE", "MIXED"})
+    public String moodMix;
+
+    /** Generations kept in the history before it is cut back. */
+    private static final int HISTORY = 16;
+
+    private ExtendedGameOfLife facade;
+    private Game game;
+    private Generation current;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        facade = new ExtendedGameOfLife();
+        game = GameFixtures.seeded("evolve", size, density, typeMix, moodMix);
+        current = game.getStart();
+    }
+
+    @Setup(Level.Invocation)
+    public void trimHistory() {
+        if (game.getGenerations().size() >= HISTORY) {
+            current = Generation.createInitial(game, game.getBoard());
+        }
+    }
+
+    @Benchmark
+    public Generation evolve() {
+        current = facade.evolve(current);
+        return current;
+    }
+}
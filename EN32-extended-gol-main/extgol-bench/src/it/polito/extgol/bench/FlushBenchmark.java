@@ -0,0 +1,104 @@
+package it.polito.extgol.bench;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.extgol.Cell;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.JPAUtil;
+import jakarta.persistence.EntityManager;
+
+/**
+ * Latency of flushing a managed game after changing the life points of a
+ * few of its cells.
+ *
+ * The game and its size * size cells stay managed by one EntityManager for
+ * the whole trial; each operation modifies `modified` cells and flushes.
+ * With the classes of a plain build Hibernate finds the changes by comparing
+ * every managed entity with its loaded snapshot, so the cost follows the
+ * board size. With those of a -Penhance build each entity records its own
+ * dirty attributes and the flush only visits the modified ones. The trial
+ * prints which of the two builds it measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g",
+        "-Dhibernate.show_sql=false", "-Dhibernate.format_sql=false"})
+public class FlushBenchmark {
+
+    @Param({"64", "256"})
+    public int size;
+
+    @Param({"1", "100"})
+    public int modified;
+
+    private EntityManager em;
+    private List<Cell> cells;
+    private int next;
+    private int lifePoints;
+
+    @Setup(Level.Trial)
+    public void load() {
+        Game game = GameFixtures.seeded("flush", size, 0.3, "MIXED", "MIXED");
+        new ExtendedGameOfLife().saveGame(game);
+
+        em = JPAUtil.getEntityManager();
+        em.getTransaction().begin();
+        Game managed = em.find(Game.class, game.getId());
+        cells = new ArrayList<>(em.createQuery("SELECT c FROM Cell c WHERE c.board = :board", Cell.class)
+                .setParameter("board", managed.getBoard())
+                .getResultList());
+        Collections.shuffle(cells, new Random(42));
+        em.flush();
+        System.out.println();
+        System.out.println((isEnhanced() ? "Enhanced" : "Plain") + " entity classes, "
+                + cells.size() + " managed cells");
+    }
+
+    @Benchmark
+    public void flush() {
+        lifePoints++;
+        for (int i = 0; i < modified; i++) {
+            cells.get(next).setLifePoints(lifePoints);
+            next = (next + 1) % cells.size();
+        }
+        em.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void close() {
+        em.getTransaction().rollback();
+        em.close();
+        JPAUtil.close();
+    }
+
+    private static boolean isEnhanced() {
+        for (Class<?> type : Cell.class.getInterfaces()) {
+            if (type.getName().equals("org.hibernate.engine.spi.ManagedEntity")) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,62 @@
+package it.polito.extgol.bench;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import it.polito.extgol.CellMood;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.Game;
+import it.polito.extgol.Generation;
+
+/**
+ * Builds reproducible seeded games for the benchmarks.
+ */
+public final class GameFixtures {
+
+    /** Fixed seed so that every fork starts from the same board. */
+    private static final long SEED = 0x5EED_601L;
+
+    private GameFixtures() {} // factory methods only
+
+    /**
+     * Creates an extended square game whose initial generation has about
+     * density * size * size alive cells.
+     *
+     * @param name    the game name
+     * @param size    the board side
+     * @param density the fraction of alive cells, between 0 and 1
+     * @param typeMix BASIC for plain cells only, MIXED for an even mix of all
+     *                cell types
+     * @param moodMix NAIVE for naive cells only, MIXED for an even mix of all
+     *                moods
+     * @return the seeded Game, ready to run
+     */
+    public static Game seeded(String name, int size, double density, String typeMix, String moodMix) {
+        Random random = new Random(SEED);
+        Game game = Game.createExtended(name, size, size);
+
+        CellType[] types = "MIXED".equals(typeMix) ? CellType.values() : new CellType[] {CellType.BASIC};
+        CellMood[] moods = "MIXED".equals(moodMix) ? CellMood.values() : new CellMood[] {CellMood.NAIVE};
+
+        Map<Coord, CellType> alive = new HashMap<>();
+        Map<CellMood, List<Coord>> byMood = new HashMap<>();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (random.nextDouble() < density) {
+                    Coord c = new Coord(x, y);
+                    alive.put(c, types[random.nextInt(types.length)]);
+                    byMood.computeIfAbsent(moods[random.nextInt(moods.length)], m -> new ArrayList<>()).add(c);
+                }
+            }
+        }
+        Generation.createInitial(game, game.getBoard(), alive);
+        // cells replaced by a specialized type start without a mood
+        game.setMoods(CellMood.NAIVE, new ArrayList<>(alive.keySet()));
+        byMood.forEach(game::setMoods);
+        return game;
+    }
+}
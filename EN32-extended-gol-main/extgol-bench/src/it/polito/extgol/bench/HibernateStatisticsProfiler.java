@@ -0,0 +1,99 @@
+package it.polito.extgol.bench;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+import org.openjdk.jmh.results.Result;
+import org.openjdk.jmh.results.ScalarResult;
+
+import it.polito.extgol.JPAUtil;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * JMH profiler reporting Hibernate statistics per benchmark operation:
+ * JDBC statements prepared, entities loaded and inserted, collections loaded
+ * and queries executed.
+ *
+ * Statistics are reset before every iteration and divided by the number of
+ * measured operations afterwards, so they work with any benchmark mode,
+ * SampleTime included. Counting starts once the benchmark has created the
+ * shared EntityManagerFactory, i.e. from the iteration following its first
+ * use; benchmarks should therefore keep database setup at Level.Trial, or it
+ * would be counted as well, and run any per-invocation cleanup through
+ * uncounted(...). Benchmarks not touching JPA report nothing.
+ */
+public class HibernateStatisticsProfiler implements InternalProfiler {
+
+    private boolean counting;
+
+    @Override
+    public String getDescription() {
+        return "Hibernate statements, loads and inserts per operation";
+    }
+
+    @Override
+    public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams) {
+        counting = JPAUtil.isInitialized();
+        if (counting) {
+            Statistics stats = statistics();
+            stats.setStatisticsEnabled(true);
+            stats.clear();
+        }
+    }
+
+    @Override
+    public Collection<? extends Result> afterIteration(BenchmarkParams benchmarkParams,
+            IterationParams iterationParams, IterationResult result) {
+        List<Result> results = new ArrayList<>();
+        long ops = result.getMetadata().getMeasuredOps();
+        if (!counting || ops == 0) {
+            return results;
+        }
+        Statistics stats = statistics();
+        results.add(perOp("sql.statements", stats.getPrepareStatementCount(), ops));
+        results.add(perOp("sql.queries", stats.getQueryExecutionCount(), ops));
+        results.add(perOp("entity.loads", stats.getEntityLoadCount(), ops));
+        results.add(perOp("entity.inserts", stats.getEntityInsertCount(), ops));
+        results.add(perOp("collection.loads", stats.getCollectionLoadCount(), ops));
+        return results;
+    }
+
+    /**
+     * Runs database work outside the statistics, e.g. removing in a
+     * Level.Invocation teardown the rows that the invocation inserted.
+     *
+     * @param work the work to run
+     */
+    static void uncounted(Runnable work) {
+        Statistics stats = statistics();
+        boolean enabled = stats.isStatisticsEnabled();
+        stats.setStatisticsEnabled(false);
+        try {
+            work.run();
+        } finally {
+            stats.setStatisticsEnabled(enabled);
+        }
+    }
+
+    private static ScalarResult perOp(String label, long count, long ops) {
+        return new ScalarResult(label, (double) count / ops, "#/op", AggregationPolicy.AVG);
+    }
+
+    private static Statistics statistics() {
+        EntityManager em = JPAUtil.getEntityManager();
+        try {
+            return em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        } finally {
+            em.close();
+        }
+    }
+}
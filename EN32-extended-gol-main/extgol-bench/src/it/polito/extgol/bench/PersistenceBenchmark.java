@@ -0,0 +1,99 @@
+package it.polito.extgol.bench;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.GameRepository;
+
+/**
+ * Latency of the persistence round trip of a whole game against the
+ * in-memory H2 unit: ExtendedGameOfLife.saveGame of a fresh game and
+ * GameRepository.load of a stored one.
+ *
+ * Games are seeded like the engine benchmarks and then run for the given
+ * number of generations, so the persisted graph grows with both the board
+ * (tiles and cells) and the history (one aliveness and one energy entry per
+ * cell and generation). Every saved game is deleted again after its
+ * invocation, outside the measured region, so that the tables keep their
+ * trial size. Results are latency percentiles; run with
+ * HibernateStatisticsProfiler (always attached by BenchmarkMain) to see the
+ * SQL statements each operation costs.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g",
+        "-Dhibernate.show_sql=false", "-Dhibernate.format_sql=false"})
+public class PersistenceBenchmark {
+
+    @Param({"16", "64"})
+    public int size;
+
+    @Param({"1", "10"})
+    public int generations;
+
+    private final ExtendedGameOfLife facade = new ExtendedGameOfLife();
+    private final GameRepository repository = new GameRepository();
+
+    /** Unsaved game consumed by saveGame. */
+    private Game fresh;
+
+    /** Identifier of the game read back by load. */
+    private Long storedId;
+
+    private int saved;
+
+    @Setup(Level.Trial)
+    public void store() {
+        Game game = seed("stored");
+        facade.saveGame(game);
+        storedId = game.getId();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        fresh = seed("saved-" + saved++);
+    }
+
+    private Game seed(String name) {
+        Game game = GameFixtures.seeded(name, size, 0.3, "MIXED", "MIXED");
+        facade.run(game, generations);
+        return game;
+    }
+
+    @TearDown(Level.Invocation)
+    public void remove() {
+        if (fresh.getId() != null) {
+            HibernateStatisticsProfiler.uncounted(() -> repository.deleteAllById(List.of(fresh.getId())));
+        }
+    }
+
+    @Benchmark
+    public Game saveGame() {
+        facade.saveGame(fresh);
+        return fresh;
+    }
+
+    @Benchmark
+    public Game load() {
+        return repository.load(storedId);
+    }
+}
@@ -0,0 +1,124 @@
+package it.polito.extgol.bench;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.extgol.Cell;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.GameRepository;
+
+/**
+ * Latency of the generic CRUD operations of GenericExtGOLRepository, applied
+ * to Game aggregates of the given board size and history length.
+ *
+ * findById and findAll read games stored once per trial; update merges the
+ * detached stored game after touching one cell. delete needs a persisted
+ * game per operation, and inserting it at Level.Invocation would pollute
+ * the SQL counts, so createThenDelete measures the full lifecycle of a game
+ * instead: subtract create to isolate the removal, which GameRepository
+ * performs with bulk statements, table by table. A game created by an
+ * invocation is deleted again after it, outside the measured region and the
+ * SQL counts, so that findAll and the inserts always see the STORED games
+ * alone.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms2g", "-Xmx2g",
+        "-Dhibernate.show_sql=false", "-Dhibernate.format_sql=false"})
+public class RepositoryBenchmark {
+
+    /** Games stored before measuring, read back by findAll. */
+    private static final int STORED = 4;
+
+    @Param({"16", "64"})
+    public int size;
+
+    @Param({"1", "10"})
+    public int generations;
+
+    private final ExtendedGameOfLife facade = new ExtendedGameOfLife();
+    private final GameRepository repository = new GameRepository();
+
+    private Game stored;
+    private Cell touched;
+    private Game fresh;
+    private int created;
+
+    @Setup(Level.Trial)
+    public void store() {
+        for (int i = 0; i < STORED; i++) {
+            stored = seed("stored-" + i);
+            repository.create(stored);
+        }
+        touched = stored.getBoard().getTile(new Coord(0, 0)).getCell();
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        fresh = seed("created-" + created++);
+    }
+
+    private Game seed(String name) {
+        Game game = GameFixtures.seeded(name, size, 0.3, "MIXED", "MIXED");
+        facade.run(game, generations);
+        return game;
+    }
+
+    @TearDown(Level.Invocation)
+    public void remove() {
+        // createThenDelete has already removed it: unknown ids are ignored
+        if (fresh.getId() != null) {
+            HibernateStatisticsProfiler.uncounted(() -> repository.deleteAllById(List.of(fresh.getId())));
+        }
+    }
+
+    @Benchmark
+    public Optional<Game> findById() {
+        return repository.findById(stored.getId());
+    }
+
+    @Benchmark
+    public List<Game> findAll() {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Game create() {
+        repository.create(fresh);
+        return fresh;
+    }
+
+    @Benchmark
+    public Game update() {
+        touched.setLifePoints(touched.getLifePoints() + 1);
+        repository.update(stored);
+        return stored;
+    }
+
+    @Benchmark
+    public Game createThenDelete() {
+        repository.create(fresh);
+        repository.delete(fresh);
+        return fresh;
+    }
+}
@@ -0,0 +1,91 @@
+package it.polito.extgol.bench;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import it.polito.extgol.EventType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+
+/**
+ * Throughput of ExtendedGameOfLife.run with a scheduled event, reported in
+ * generations per second.
+ *
+ * Each invocation runs STEPS generations from the game's start with the
+ * selected event fired at every step (NONE runs without events), which
+ * measures the event-processing path on top of plain evolution.
+ *
+ * Every invocation starts from a freshly seeded game: run(...) restarts
+ * from the start generation and appends to the history, so a reused game
+ * would carry over the cells left by the previous invocation (boards under
+ * FAMINE or CATACLYSM soon dying out) and grow its history for the whole
+ * iteration. Seeding is not measured; each invocation computes several
+ * generations, enough for the per-invocation setup to stay negligible.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class RunBenchmark {
+
+    /** Generations computed per invocation. */
+    private static final int STEPS = 8;
+
+    @Param({"64", "256"})
+    public int size;
+
+    @Param({"0.3"})
+    public double density;
+
+    @Param({"MIXED"})
+    public String typeMix;
+
+    @Param({"MIXED"})
+    public String moodMix;
+
+    @Param({"NONE", "CATACLYSM", "FAMINE", "BLOOM", "BLOOD_MOON", "SANCTUARY"})
+    public String event;
+
+    private ExtendedGameOfLife facade;
+    private Game game;
+    private final Map<Integer, EventType> schedule = new HashMap<>();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        facade = new ExtendedGameOfLife();
+        schedule.clear();
+        if (!"NONE".equals(event)) {
+            for (int step = 0; step < STEPS; step++) {
+                schedule.put(step, EventType.valueOf(event));
+            }
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void seed() {
+        game = GameFixtures.seeded("run", size, density, typeMix, moodMix);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(STEPS)
+    public Game run() {
+        return facade.run(game, STEPS, schedule);
+    }
+}
@@ -0,0 +1,183 @@
+package it.polito.extgol.cli;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+
+import it.polito.extgol.BoardRenderer;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.EventType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.FrameExporter;
+import it.polito.extgol.Game;
+import it.polito.extgol.GameStore;
+import it.polito.extgol.Generation;
+
+/**
+ * Runs a seeded simulation from the command line, without any user interface.
+ *
+ * Only extgol-core is needed to simulate; the persistence module is loaded
+ * through the GameStore service, and only when --save is given.
+ *
+ * Usage:
+ * <pre>
+ * java -jar extgol-cli.jar [--size N] [--steps N] [--density D] [--seed S]
+ *                          [--event STEP=TYPE]... [--frames DIR] [--print]
+ *                          [--save NAME]
+ * </pre>
+ */
+public final class HeadlessRunner {
+
+    private int size = 64;
+    private int steps = 100;
+    private double density = 0.3;
+    private long seed = System.nanoTime();
+    private final Map<Integer, EventType> events = new HashMap<>();
+    private Path frames;
+    private boolean print;
+    private String saveAs;
+
+    private HeadlessRunner() {} // built by parse(...)
+
+    public static void main(String[] args) {
+        HeadlessRunner runner;
+        try {
+            runner = parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println("usage: [--size N] [--steps N] [--density D] [--seed S]"
+                    + " [--event STEP=TYPE]... [--frames DIR] [--print] [--save NAME]");
+            System.exit(2);
+            return;
+        }
+        try {
+            runner.run();
+        } catch (IOException e) {
+            System.err.println("I/O error: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args the arguments
+     * @return the configured runner
+     * @throws IllegalArgumentException if an option is unknown or malformed
+     */
+    static HeadlessRunner parse(String[] args) {
+        HeadlessRunner r = new HeadlessRunner();
+        for (int i = 0; i < args.length; i++) {
+            String option = args[i];
+            switch (option) {
+                case "--size" -> r.size = positive(option, value(args, ++i, option));
+                case "--steps" -> r.steps = positive(option, value(args, ++i, option));
+                case "--density" -> {
+                    r.density = Double.parseDouble(value(args, ++i, option));
+                    if (r.density < 0 || r.density > 1) {
+                        throw new IllegalArgumentException("--density must be between 0 and 1");
+                    }
+                }
+                case "--seed" -> r.seed = Long.parseLong(value(args, ++i, option));
+                case "--event" -> {
+                    String[] parts = value(args, ++i, option).split("=", 2);
+                    if (parts.length != 2) {
+                        throw new IllegalArgumentException("--event expects STEP=TYPE");
+                    }
+                    r.events.put(Integer.parseInt(parts[0]), EventType.valueOf(parts[1]));
+                }
+                case "--frames" -> r.frames = Paths.get(value(args, ++i, option));
+                case "--print" -> r.print = true;
+                case "--save" -> r.saveAs = value(args, ++i, option);
+                default -> throw new IllegalArgumentException("Unknown option: " + option);
+            }
+        }
+        return r;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " expects a value");
+        }
+        return args[i];
+    }
+
+    private static int positive(String option, String value) {
+        int n = Integer.parseInt(value);
+        if (n < 1) {
+            throw new IllegalArgumentException(option + " must be positive");
+        }
+        return n;
+    }
+
+    private void run() throws IOException {
+        // the persistence unit boots while the simulation runs
+        CompletableFuture<Void> storeReady = saveAs != null ? GameStore.get().warmUp() : null;
+
+        Game game = seeded();
+        ExtendedGameOfLife engine = new ExtendedGameOfLife();
+
+        long start = System.nanoTime();
+        if (frames != null) {
+            try (FrameExporter exporter = FrameExporter.pbm(frames, 1, 1)) {
+                exporter.onGeneration(game.getStart());
+                engine.addGenerationListener(exporter);
+                simulate(engine, game);
+            }
+        } else {
+            simulate(engine, game);
+        }
+        long elapsed = System.nanoTime() - start;
+
+        Generation last = game.getGenerations().get(game.getGenerations().size() - 1);
+        System.out.printf("%dx%d board, seed %d: %d generations in %.1f ms, %d alive at step %d%n",
+                size, size, seed, game.getGenerations().size() - 1, elapsed / 1e6,
+                engine.getAliveCells(last).size(), last.getStep());
+
+        if (print) {
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.US_ASCII));
+            new BoardRenderer().render(last, out);
+            out.write(System.lineSeparator());
+            out.flush();
+        }
+
+        if (saveAs != null) {
+            storeReady.join();
+            game.setName(saveAs);
+            engine.saveGame(game);
+            System.out.println("Saved as '" + saveAs + "' with id " + game.getId());
+        }
+    }
+
+    private void simulate(ExtendedGameOfLife engine, Game game) {
+        if (events.isEmpty()) {
+            engine.run(game, steps);
+        } else {
+            engine.run(game, steps, events);
+        }
+    }
+
+    private Game seeded() {
+        Random random = new Random(seed);
+        Game game = Game.createExtended("cli-" + seed, size, size);
+        Map<Coord, CellType> alive = new HashMap<>();
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                if (random.nextDouble() < density) {
+                    alive.put(new Coord(x, y), CellType.BASIC);
+                }
+            }
+        }
+        Generation.createInitial(game, game.getBoard(), alive);
+        return game;
+    }
+}
@@ -0,0 +1,137 @@
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import org.hibernate.bytecode.enhance.spi.DefaultEnhancementContext;
+import org.hibernate.bytecode.enhance.spi.Enhancer;
+import org.hibernate.bytecode.enhance.spi.UnloadedClass;
+import org.hibernate.bytecode.enhance.spi.UnloadedField;
+import org.hibernate.bytecode.internal.BytecodeProviderInitiator;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
+
+/**
+ * Build step of the enhance profile: applies Hibernate bytecode enhancement
+ * to the compiled model classes, in place.
+ *
+ * hibernate-enhance-maven-plugin only recognizes classes annotated with
+ * Entity or Embeddable, while the model is mapped by orm.xml alone, so this
+ * script reads the entity and embeddable classes from orm.xml and calls the
+ * same Hibernate enhancer on them. Enhanced entities track their own dirty
+ * attributes, so that a flush only inspects the entities that were
+ * modified, and support lazy attribute loading.
+ *
+ * Association management is not enabled: the enhancer finds the inverse
+ * side of an association through the mappedBy of its annotations, which
+ * orm.xml mappings do not have.
+ *
+ * Run by the JDK source launcher, with Hibernate on the class path:
+ * <pre>
+ * java -cp HIBERNATE_CLASSPATH EnhanceEntities.java CLASSES_DIR ORM_XML
+ * </pre>
+ */
+public class EnhanceEntities {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("usage: EnhanceEntities CLASSES_DIR ORM_XML");
+        }
+        Path classes = Paths.get(args[0]);
+        Set<String> entities = new TreeSet<>();
+        Set<String> embeddables = new TreeSet<>();
+        readMapping(Paths.get(args[1]), entities, embeddables);
+
+        URLClassLoader loader = new URLClassLoader(new URL[] {classes.toUri().toURL()},
+                EnhanceEntities.class.getClassLoader());
+        Enhancer enhancer = BytecodeProviderInitiator.buildDefaultBytecodeProvider().getEnhancer(
+                new DefaultEnhancementContext() {
+                    @Override
+                    public ClassLoader getLoadingClassLoader() {
+                        return loader;
+                    }
+
+                    @Override
+                    public boolean isEntityClass(UnloadedClass c) {
+                        return entities.contains(c.getName());
+                    }
+
+                    @Override
+                    public boolean isCompositeClass(UnloadedClass c) {
+                        return embeddables.contains(c.getName());
+                    }
+
+                    @Override
+                    public boolean doBiDirectionalAssociationManagement(UnloadedField field) {
+                        return false;
+                    }
+
+                    @Override
+                    public boolean doDirtyCheckingInline(UnloadedClass c) {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean hasLazyLoadableAttributes(UnloadedClass c) {
+                        return true;
+                    }
+
+                    @Override
+                    public boolean isLazyLoadable(UnloadedField field) {
+                        return true;
+                    }
+                });
+
+        Set<String> all = new TreeSet<>(entities);
+        all.addAll(embeddables);
+        int enhanced = 0;
+        for (String name : all) {
+            Path file = classes.resolve(name.replace('.', '/') + ".class");
+            byte[] result = enhancer.enhance(name, Files.readAllBytes(file));
+            // null when the class was already enhanced by a previous build
+            if (result != null) {
+                Files.write(file, result);
+                enhanced++;
+            }
+        }
+        System.out.println("Enhanced " + enhanced + " of " + all.size() + " mapped classes in " + classes);
+    }
+
+    /**
+     * Collects the fully qualified names of the entity and embeddable classes
+     * of an orm.xml file, resolved against its package element.
+     */
+    private static void readMapping(Path ormXml, Set<String> entities, Set<String> embeddables)
+            throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        Document mapping;
+        try {
+            mapping = factory.newDocumentBuilder().parse(ormXml.toFile());
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Cannot read " + ormXml, e);
+        }
+        NodeList packages = mapping.getElementsByTagNameNS("*", "package");
+        String prefix = packages.getLength() > 0 ? packages.item(0).getTextContent().trim() + "." : "";
+        collect(mapping.getElementsByTagNameNS("*", "entity"), prefix, entities);
+        collect(mapping.getElementsByTagNameNS("*", "embeddable"), prefix, embeddables);
+    }
+
+    private static void collect(NodeList elements, String prefix, Set<String> names) {
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < elements.getLength(); i++) {
+            String name = ((Element) elements.item(i)).getAttribute("class");
+            if (seen.add(name)) {
+                names.add(name.contains(".") ? name : prefix + name);
+            }
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package it.polito.extgol;
 
-import java.util.Comparator;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.IntSummaryStatistics;
@@ -9,17 +11,6 @@ import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import jakarta.persistence.CascadeType;
-import jakarta.persistence.Column;
-import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.MapKey;
-import jakarta.persistence.OneToMany;
-import jakarta.persistence.OneToOne;
-
 /**
  * Entity representing the game board grid in the Extended Game of Life.
  *
@@ -29,46 +20,50 @@ import jakarta.persistence.OneToOne;
  * visualization and hooks for extended behaviors such as energy modifiers,
  * interactive tiles, and analytic methods over cell lifePoints.
  *
- * Core responsibilities: - Persistence via JPA annotations (@Entity, @Id,
- *
- * @OneToMany, etc.) - Initialization of the tile grid and adjacency links -
+ * Core responsibilities: - Persistence as a JPA entity, mapped in the
+ * orm.xml of extgol-persistence - Initialization of the tile grid and adjacency links -
  * Retrieval of tiles and cells for simulation logic - String-based
  * visualization of cell states in a generation - Factory support for the
  * extended version (interactable tiles, default moods/types) - Analytic
  * operations over generations (e.g., counting, grouping, statistics)
  */
-@Entity
 public class Board {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Integer id;
 
     /**
      * Number of columns on the board.
      */
-    @Column(nullable = false)
     private Integer width = 5;
 
     /**
      * Number of rows on the board.
      */
-    @Column(nullable = false)
     private Integer height = 5;
 
     /**
      * Inverse one-to-one back to owning Game.
      */
-    @OneToOne(mappedBy = "board", fetch = FetchType.LAZY)
     private Game game;
 
     /**
      * Map of tile coordinates to Tile entities.
      */
-    @OneToMany(mappedBy = "board", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
-    @MapKey(name = "tileCoord")
     private Map<Coord, Tile> tiles = new HashMap<>();
 
+    /**
+     * Row-major array view of the tiles map (index y * width + x), built on
+     * demand. Not persisted.
+     */
+    private transient Tile[] grid;
+
+    /**
+     * Number of alive neighbors of every tile's cell, row-major like grid.
+     * Built once on demand, then kept up to date by ±1 updates around each
+     * birth and death reported by the cells. Not persisted.
+     */
+    private transient byte[] aliveNeighbors;
+
     /**
      * Default constructor required by JPA.
      */
@@ -137,6 +132,7 @@ public class Board {
      * tiles, enabling neighbor-based logic in the simulation.
      */
     private void initializeTiles() {
+        invalidateGrid();
         tiles.clear();
         for (int y = 0; y < height; y++) {
             for (int x = 0; x < width; x++) {
@@ -145,6 +141,16 @@ public class Board {
                 tiles.put(tile.getCoordinates(), tile);
             }
         }
+        linkNeighbors();
+    }
+
+    /**
+     * Establishes the (non-persistent) neighbor relationships of every tile.
+     * Called at construction and again after the board is loaded from the
+     * database, since neighbor sets are transient.
+     */
+    void linkNeighbors() {
+        invalidateGrid();
         for (Tile t : tiles.values()) {
             t.initializeNeighbors(getAdjacentTiles(t));
         }
@@ -195,6 +201,37 @@ public class Board {
         return id;
     }
 
+    /**
+     * Returns the number of columns of this Board.
+     *
+     * @return the board width
+     */
+    public int getWidth() {
+        return width;
+    }
+
+    /**
+     * Returns the number of rows of this Board.
+     *
+     * @return the board height
+     */
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * Retrieves the Tile at (x, y) through the row-major tile array, without
+     * allocating a Coord for the lookup.
+     *
+     * @param x the column index
+     * @param y the row index
+     * @return the Tile at that position, or null if there is none
+     */
+    Tile tileAt(int x, int y) {
+        int idx = indexOf(x, y);
+        return idx < 0 ? null : grid()[idx];
+    }
+
     /**
      * Retrieves the Tile at the specified coordinates.
      *
@@ -224,9 +261,115 @@ public class Board {
      * @param tile  the tile to be added
      */
     public void addTile(Coord coord, Tile tile) {
+        invalidateGrid();
         this.tiles.put(coord, tile);
     }
 
+    /**
+     * Returns the number of alive cells around the given one.
+     *
+     * Cells placed on this board are answered from the neighbor-count field,
+     * built on first use and then maintained incrementally; any other cell
+     * falls back to walking its neighboring tiles.
+     *
+     * @param cell the Cell whose neighborhood is inspected
+     * @return the number of alive neighboring cells
+     */
+    public int countAliveNeighbors(Cell cell) {
+        int idx = indexOf(cell.getX(), cell.getY());
+        if (idx < 0 || grid()[idx] == null || grid[idx].getCell() != cell) {
+            return cell.walkAliveNeighbors();
+        }
+        return neighborCounts()[idx];
+    }
+
+    /**
+     * Applies a birth or death to the neighbor-count field by adding ±1 to
+     * the counter of each neighboring tile. Invoked by Cell.setAlive(...) for
+     * cells registered with this board.
+     *
+     * @param cell  the Cell whose state flipped
+     * @param alive the new state of the cell
+     */
+    void onAliveChanged(Cell cell, boolean alive) {
+        byte[] counts = this.aliveNeighbors;
+        int x = cell.getX();
+        int y = cell.getY();
+        int idx = indexOf(x, y);
+        if (counts == null || idx < 0 || grid[idx] == null || grid[idx].getCell() != cell) {
+            return;
+        }
+        int delta = alive ? 1 : -1;
+        for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++) {
+            for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++) {
+                if (nx != x || ny != y) {
+                    counts[ny * width + nx] += delta;
+                }
+            }
+        }
+    }
+
+    /**
+     * Discards the neighbor-count field, e.g. after a cell was swapped on one
+     * of the tiles; it is rebuilt on the next query.
+     */
+    void invalidateNeighborCounts() {
+        this.aliveNeighbors = null;
+    }
+
+    /**
+     * Returns the neighbor-count field, computing it from scratch and
+     * registering every cell for incremental updates if needed.
+     */
+    private byte[] neighborCounts() {
+        if (aliveNeighbors == null) {
+            Tile[] g = grid();
+            byte[] counts = new byte[g.length];
+            for (int i = 0; i < g.length; i++) {
+                Cell c = g[i] == null ? null : g[i].getCell();
+                if (c != null) {
+                    counts[i] = (byte) c.walkAliveNeighbors();
+                    c.trackNeighborsOn(this);
+                }
+            }
+            aliveNeighbors = counts;
+        }
+        return aliveNeighbors;
+    }
+
+    /**
+     * Returns the row-major tile array, building it from the tiles map if
+     * needed.
+     */
+    private Tile[] grid() {
+        if (grid == null) {
+            Tile[] g = new Tile[width * height];
+            for (Tile t : tiles.values()) {
+                int idx = indexOf(t.getX(), t.getY());
+                if (idx >= 0) {
+                    g[idx] = t;
+                }
+            }
+            grid = g;
+        }
+        return grid;
+    }
+
+    /**
+     * Row-major index of (x, y), or -1 if it lies outside the board.
+     */
+    private int indexOf(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+        return y * width + x;
+    }
+
+    private void invalidateGrid() {
+        this.grid = null;
+        this.aliveNeighbors = null;
+    }
+
     /**
      * Gathers and returns the set of all Cells currently placed on this Board.
      *
@@ -245,6 +388,9 @@ public class Board {
      * character grid. Alive cells are represented by 'C' and dead cells by '0'.
      * Each row of the board is separated by a newline character.
      *
+     * Large boards or partial views are better streamed with a
+     * BoardRenderer, which this method uses under the hood.
+     *
      * @param generation the Generation object containing the current cell
      *                   states
      * @return a multi-line String representing the board, where each line
@@ -252,35 +398,14 @@ public class Board {
      */
 
     public String visualize(Generation generation) {
-        Set<Coord> aliveCoords = generation.getAliveCells().stream()
-                .map(Cell::getCoordinates)
-                .collect(Collectors.toSet());
-
-        StringBuilder sb = new StringBuilder();
-        Board board = generation.getBoard();
-
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                Coord coord = new Coord(x, y);
-
-                char cellRepresentation = '0';
-                if (aliveCoords.contains(coord)) {
-                    Cell cell = board.getTile(coord).getCell();
-                    if (cell != null) {
-                        cellRepresentation = cell.getTypeRepresentation();
-                    }
-                }
-
-                sb.append(cellRepresentation);
-            }
-            // use height here so you don't append a newline after the last row
-            if (y < height - 1) {
-                sb.append(System.lineSeparator());
-            }
+        int separator = System.lineSeparator().length();
+        StringBuilder sb = new StringBuilder(width * height + Math.max(0, height - 1) * separator);
+        try {
+            new BoardRenderer().render(generation, 0, 0, width, height, sb);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // StringBuilder never throws
         }
-
         return sb.toString();
-
     }
 
     // EXTENDED BEHAVIORS
@@ -325,27 +450,61 @@ public class Board {
      * @return the Cell with maximum lifePoints, or null if no cells are alive
      */
     public Cell getHighestEnergyCell(Generation gen) {
-        return gen.getAliveCells()
-                .stream()
-                .sorted(Comparator
-                    .comparingInt(Cell::getLifePoints).reversed()
-                    .thenComparingInt(Cell::getY)
-                    .thenComparingInt(Cell::getX))
-                .findFirst()
-                .orElse(null);
+        List<Cell> top = gen.rankByEnergy(1);
+        return top.isEmpty() ? null : top.get(0);
     }
 
     /**
      * Groups all alive cells in the generation by their current lifePoints.
      *
+     * Groups are read off the generation's energy index, where each level is
+     * a contiguous run of cells, instead of regrouping the board each call.
+     *
      * @param gen the Generation instance to analyze
      * @return a Map from lifePoints value to the List of Cells having that
      *         energy
      */
     public Map<Integer, List<Cell>> getCellsByEnergyLevel(Generation gen) {
-        return gen.getAliveCells()
-                .stream()
-                .collect(Collectors.groupingBy(Cell::getLifePoints));
+        return gen.energyIndex().byLevel();
+    }
+
+    /**
+     * Returns the alive cells holding exactly the given lifePoints, closest to
+     * the top-left corner first.
+     *
+     * @param gen   the Generation instance to analyze
+     * @param level the lifePoints value to look up
+     * @return a List of the Cells at that energy level
+     */
+    public List<Cell> getCellsAtEnergyLevel(Generation gen, int level) {
+        if (gen.getEnergyHistogram().count(level) == 0) {
+            return List.of();
+        }
+        return gen.energyIndex().atLevel(level);
+    }
+
+    /**
+     * Counts the alive cells holding exactly the given lifePoints.
+     *
+     * @param gen   the Generation instance to analyze
+     * @param level the lifePoints value to look up
+     * @return the number of alive cells at that energy level
+     */
+    public int countCellsAtEnergyLevel(Generation gen, int level) {
+        return gen.getEnergyHistogram().count(level);
+    }
+
+    /**
+     * Returns the nearest-rank percentile of the alive cells' lifePoints, e.g.
+     * 50 for the median or 99 for the p99 energy.
+     *
+     * @param gen the Generation instance to analyze
+     * @param p   the percentile, between 0 and 100 inclusive
+     * @return the lifePoints value at the requested percentile
+     * @throws IllegalStateException if no cell is alive in gen
+     */
+    public int energyPercentile(Generation gen, double p) {
+        return gen.getEnergyHistogram().percentile(p);
     }
 
     /**
@@ -363,46 +522,53 @@ public class Board {
     }
 
     /**
-     * Returns the top n cells sorted by descending lifePoints.
+     * Returns the top n cells sorted by descending lifePoints. Ties are broken
+     * as in getHighestEnergyCell(...), closest to the top-left corner first.
+     *
+     * Selection is done with a bounded heap, O(n log k), and generations that
+     * are ranked repeatedly keep an energy index answering in O(k).
      *
      * @param gen the Generation instance to analyze
      * @param n   the number of top-energy cells to return
      * @return a List of the top n Cells by lifePoints, in descending order
      */
     public List<Cell> topEnergyCells(Generation gen, int n) {
-        return gen.getAliveCells()
-                .stream()
-                .sorted(Comparator.comparingInt(Cell::getLifePoints).reversed())
-                .limit(n)
-                .collect(Collectors.toList());
+        if (n < 0) {
+            throw new IllegalArgumentException("n must not be negative: " + n);
+        }
+        return gen.rankByEnergy(n);
     }
 
     /**
-     * Groups each alive cell by its number of live neighbors.
+     * Groups each alive cell by its number of live neighbors, read from the
+     * board's neighbor-count field.
      *
      * @param gen the Generation instance to analyze
      * @return a Map from neighbor count to the List of Cells having that many
      *         alive neighbors
      */
     public Map<Integer, List<Cell>> groupByAliveNeighborCount(Generation gen) {
-        return gen.getAliveCells()
-                .stream()
-                .collect(Collectors.groupingBy(Cell::countAliveNeighbors));
+        Board cellsBoard = gen.getBoard();
+        Map<Integer, List<Cell>> groups = new HashMap<>();
+        for (Map.Entry<Cell, Boolean> e : gen.alivenessView().entrySet()) {
+            if (e.getValue()) {
+                Cell c = e.getKey();
+                groups.computeIfAbsent(cellsBoard.countAliveNeighbors(c), k -> new ArrayList<>()).add(c);
+            }
+        }
+        return groups;
     }
 
     /**
      * Computes summary statistics (count, min, max, sum, average) over all
-     * alive cells’ lifePoints.
+     * alive cells’ lifePoints, as recorded in the generation's energy
+     * histogram.
      *
      * @param gen the Generation instance to analyze
      * @return an IntSummaryStatistics with aggregated lifePoints metrics
      */
     public IntSummaryStatistics energyStatistics(Generation gen) {
-        return gen.getEnergyStates()
-                .entrySet()
-                .stream()
-                .filter(entry -> entry.getKey().isAlive())
-                .collect(Collectors.summarizingInt(Map.Entry::getValue));
+        return gen.getEnergyHistogram().toStatistics();
     }
 
     /**
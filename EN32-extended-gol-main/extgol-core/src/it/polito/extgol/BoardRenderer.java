@@ -0,0 +1,142 @@
+package it.polito.extgol;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.util.Objects;
+
+/**
+ * Streams the textual representation of a Generation, row by row, straight
+ * from the board state into a caller-supplied sink.
+ *
+ * Uses the same alphabet as Board.visualize(...): '0' for dead cells and the
+ * type representation ('C', 'H', 'L', 'S') for alive ones, with rows
+ * separated by the platform line separator and no separator after the last
+ * row. Any rectangular viewport can be rendered, so a very large board can
+ * be paged to a terminal or dumped to a file without ever building the whole
+ * picture in memory.
+ *
+ * Row buffers are allocated once and reused across calls; an instance is
+ * therefore not thread-safe and should be confined to one rendering thread.
+ */
+public class BoardRenderer {
+
+    private static final char[] LINE_SEPARATOR = System.lineSeparator().toCharArray();
+
+    /** Reusable row of characters, line separator included. */
+    private char[] row = new char[0];
+
+    /** Reusable view over row, for sinks only accepting CharSequence. */
+    private CharBuffer rowView = CharBuffer.wrap(row);
+
+    /** Reusable ASCII-encoded row for channel output. */
+    private ByteBuffer bytes = ByteBuffer.allocate(0);
+
+    /**
+     * Renders the whole board of the given generation.
+     *
+     * @param generation the Generation to render
+     * @param out        the sink receiving the characters
+     * @throws IOException if the sink fails
+     */
+    public void render(Generation generation, Appendable out) throws IOException {
+        Board board = generation.getBoard();
+        render(generation, 0, 0, board.getWidth(), board.getHeight(), out);
+    }
+
+    /**
+     * Renders the rectangle of width w and height h whose top-left corner is
+     * (x, y). Positions outside the board are rendered as dead cells.
+     *
+     * @param generation the Generation to render
+     * @param x          the first column of the viewport
+     * @param y          the first row of the viewport
+     * @param w          the number of columns to render
+     * @param h          the number of rows to render
+     * @param out        the sink receiving the characters
+     * @throws IOException if the sink fails
+     */
+    public void render(Generation generation, int x, int y, int w, int h, Appendable out) throws IOException {
+        Objects.requireNonNull(out, "Output cannot be null");
+        checkViewport(w, h);
+        for (int r = 0; r < h; r++) {
+            int len = fillRow(generation, x, y + r, w, r < h - 1);
+            if (out instanceof StringBuilder sb) {
+                sb.append(row, 0, len);
+            } else if (out instanceof Writer writer) {
+                writer.write(row, 0, len);
+            } else {
+                rowView.clear().limit(len);
+                out.append(rowView);
+            }
+        }
+    }
+
+    /**
+     * Renders the rectangle of width w and height h whose top-left corner is
+     * (x, y) as ASCII bytes into the given channel.
+     *
+     * @param generation the Generation to render
+     * @param x          the first column of the viewport
+     * @param y          the first row of the viewport
+     * @param w          the number of columns to render
+     * @param h          the number of rows to render
+     * @param out        the channel receiving the bytes
+     * @throws IOException if the channel fails
+     */
+    public void render(Generation generation, int x, int y, int w, int h, WritableByteChannel out)
+            throws IOException {
+        Objects.requireNonNull(out, "Output cannot be null");
+        checkViewport(w, h);
+        for (int r = 0; r < h; r++) {
+            int len = fillRow(generation, x, y + r, w, r < h - 1);
+            if (bytes.capacity() < len) {
+                bytes = ByteBuffer.allocateDirect(len);
+            }
+            bytes.clear();
+            for (int i = 0; i < len; i++) {
+                bytes.put((byte) row[i]);
+            }
+            bytes.flip();
+            while (bytes.hasRemaining()) {
+                out.write(bytes);
+            }
+        }
+    }
+
+    /**
+     * Fills the reusable row buffer with one board row of the viewport.
+     *
+     * @return the number of characters written, separator included
+     */
+    private int fillRow(Generation generation, int x, int y, int w, boolean separator) {
+        int len = w + (separator ? LINE_SEPARATOR.length : 0);
+        if (row.length < len) {
+            row = new char[w + LINE_SEPARATOR.length];
+            rowView = CharBuffer.wrap(row);
+        }
+        Board board = generation.getBoard();
+        for (int i = 0; i < w; i++) {
+            char c = '0';
+            if (generation.isAliveAt(x + i, y)) {
+                Tile tile = board.tileAt(x + i, y);
+                if (tile != null && tile.getCell() != null) {
+                    c = tile.getCell().getTypeRepresentation();
+                }
+            }
+            row[i] = c;
+        }
+        if (separator) {
+            System.arraycopy(LINE_SEPARATOR, 0, row, w, LINE_SEPARATOR.length);
+        }
+        return len;
+    }
+
+    private static void checkViewport(int w, int h) {
+        if (w < 0 || h < 0) {
+            throw new IllegalArgumentException("Viewport size must not be negative: " + w + "x" + h);
+        }
+    }
+}
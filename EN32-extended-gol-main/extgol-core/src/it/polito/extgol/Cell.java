@@ -3,20 +3,6 @@ package it.polito.extgol;
 import java.util.ArrayList;
 import java.util.List;
 
-import jakarta.persistence.AttributeOverride;
-import jakarta.persistence.AttributeOverrides;
-import jakarta.persistence.Column;
-import jakarta.persistence.Embedded;
-import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToOne;
-import jakarta.persistence.Transient;
-
 /**
  * Entity representing a cell in the Extended Game of Life.
  *
@@ -26,11 +12,8 @@ import jakarta.persistence.Transient;
  * Evolvable to apply Conway’s rules plus energy checks each generation, and
  * Interactable to model cell–cell energy exchanges.
  */
-@Entity
 public class Cell implements Evolvable, Interactable {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
    
@@ -40,56 +23,46 @@ public class Cell implements Evolvable, Interactable {
     /**
      * In-memory coordinates, persisted as two columns cell_x and cell_y.
      */
-    @Embedded
-    @AttributeOverrides({
-        @AttributeOverride(name = "x", column = @Column(name = "cell_x", nullable = false)),
-        @AttributeOverride(name = "y", column = @Column(name = "cell_y", nullable = false))
-    })
     private Coord cellCoord;
 
     /** Persisted cell type (default null) */
-    @Column(name = "type", nullable = true)
     protected CellType type;
 
     /** Persisted alive/dead state */
-    @Column(name = "is_alive", nullable = false)
     protected Boolean isAlive = false;
 
     /**
      * Persisted lifepoints (default 0)
      */
-    @Column(name = "lifepoints", nullable = false)
     protected Integer lifepoints = 0;
 
     /**
      * Reference to the parent board (read-only).
      */
-    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "board_id", nullable = false, updatable = false)
     protected Board board;
 
     /**
      * Reference to the owning game (read-only).
      */
-    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "game_id", nullable = false, updatable = false)
     protected Game game;
 
     /**
      * Transient list tracking generations this cell belongs to.
      */
-    @Transient
-    protected List<Generation> generations = new ArrayList<>();
+    protected transient List<Generation> generations = new ArrayList<>();
 
     /**
      * Back-reference: Tile owns the foreign key mapping.
      */
-    @OneToOne(mappedBy = "cell", fetch = FetchType.LAZY)
     protected Tile tile;
 
-    @Column(name = "cell_mood", nullable = true)
+    /**
+     * Board keeping an incremental neighbor-count field that must hear about
+     * this cell's births and deaths. Not persisted.
+     */
+    private transient Board neighborTracker;
+
     private CellMood mood;
-    @Column(name = "is_infected", nullable = true)
     private boolean isInfected = false;
 
     /**
@@ -187,12 +160,25 @@ public class Cell implements Evolvable, Interactable {
     /**
      * Counts the number of live cells adjacent to this cell’s tile.
      *
-     * Iterates over all neighboring tiles and increments the count for each
-     * tile that hosts an alive Cell.
+     * Answered from the board's neighbor-count field once this cell is
+     * registered with it; otherwise iterates over all neighboring tiles and
+     * increments the count for each tile that hosts an alive Cell.
      *
      * @return the total number of alive neighboring cells
      */
     public int countAliveNeighbors() {
+        if (neighborTracker != null) {
+            return neighborTracker.countAliveNeighbors(this);
+        }
+        return walkAliveNeighbors();
+    }
+
+    /**
+     * Counts alive neighbors by walking the neighboring tiles.
+     *
+     * @return the total number of alive neighboring cells
+     */
+    int walkAliveNeighbors() {
         int count = 0;
         for (Tile t : tile.getNeighbors()) {
             if (t.getCell() != null && t.getCell().isAlive()) {
@@ -202,6 +188,24 @@ public class Cell implements Evolvable, Interactable {
         return count;
     }
 
+    /**
+     * Registers the board whose neighbor-count field follows this cell.
+     *
+     * @param board the Board to notify on births and deaths, or null
+     */
+    void trackNeighborsOn(Board board) {
+        this.neighborTracker = board;
+    }
+
+    /**
+     * Returns the board following this cell's births and deaths, if any.
+     *
+     * @return the registered Board, or null
+     */
+    Board neighborTracker() {
+        return neighborTracker;
+    }
+
     /**
      * Registers this cell in the specified generation’s back-reference list.
      *
@@ -271,7 +275,11 @@ public class Cell implements Evolvable, Interactable {
      * @param isAlive true to mark the cell as alive; false to mark it as dead
      */
     public void setAlive(boolean isAlive) {
+        boolean changed = this.isAlive != isAlive;
         this.isAlive = isAlive;
+        if (changed && neighborTracker != null) {
+            neighborTracker.onAliveChanged(this, isAlive);
+        }
     }
 
     /**
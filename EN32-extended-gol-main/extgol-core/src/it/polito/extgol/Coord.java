@@ -1,14 +1,11 @@
 package it.polito.extgol;
 
-import jakarta.persistence.Embeddable;
-
 /**
  * Represents a two-dimensional coordinate on the game board.
  * 
- * This class is marked @Embeddable so that its fields can be embedded
+ * This class is mapped as an embeddable so that its fields can be embedded
  * directly into owning entity tables (e.g., Cell or Tile).
  */
-@Embeddable
 public class Coord {
 
     /** The X (column) position on the board. */
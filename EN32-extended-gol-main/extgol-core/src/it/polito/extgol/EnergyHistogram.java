@@ -0,0 +1,158 @@
+package it.polito.extgol;
+
+import java.util.IntSummaryStatistics;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Compact histogram of the lifePoints held by the alive cells of a
+ * Generation.
+ *
+ * Levels in the common range [DENSE_MIN, DENSE_MAX] are counted in a plain
+ * array offset so that negative energies fit; rarer levels outside it fall
+ * into sorted overflow buckets. The histogram is updated cell by cell while
+ * a generation records its states, so counts, summary statistics and
+ * percentiles never require rescanning the board.
+ */
+public final class EnergyHistogram {
+
+    /** Lowest level counted in the dense array. */
+    static final int DENSE_MIN = -32;
+
+    /** Highest level counted in the dense array. */
+    static final int DENSE_MAX = 223;
+
+    private final int[] dense = new int[DENSE_MAX - DENSE_MIN + 1];
+
+    private final NavigableMap<Integer, Integer> overflow = new TreeMap<>();
+
+    private int total;
+
+    private long sum;
+
+    /**
+     * Records one more alive cell at the given level.
+     *
+     * @param level the cell's lifePoints
+     */
+    void add(int level) {
+        if (level >= DENSE_MIN && level <= DENSE_MAX) {
+            dense[level - DENSE_MIN]++;
+        } else {
+            overflow.merge(level, 1, Integer::sum);
+        }
+        total++;
+        sum += level;
+    }
+
+    /**
+     * Forgets one alive cell previously recorded at the given level.
+     *
+     * @param level the cell's former lifePoints
+     */
+    void remove(int level) {
+        if (level >= DENSE_MIN && level <= DENSE_MAX) {
+            dense[level - DENSE_MIN]--;
+        } else {
+            overflow.computeIfPresent(level, (l, c) -> c == 1 ? null : c - 1);
+        }
+        total--;
+        sum -= level;
+    }
+
+    /**
+     * Returns the number of alive cells recorded at exactly the given level.
+     *
+     * @param level the lifePoints value to look up
+     * @return the count of cells holding that many lifePoints
+     */
+    public int count(int level) {
+        if (level >= DENSE_MIN && level <= DENSE_MAX) {
+            return dense[level - DENSE_MIN];
+        }
+        return overflow.getOrDefault(level, 0);
+    }
+
+    /**
+     * Returns the number of alive cells recorded in this histogram.
+     *
+     * @return the total count
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * Returns the lowest recorded level.
+     *
+     * @return the minimum lifePoints among alive cells
+     * @throws IllegalStateException if the histogram is empty
+     */
+    public int min() {
+        return percentile(0);
+    }
+
+    /**
+     * Returns the highest recorded level.
+     *
+     * @return the maximum lifePoints among alive cells
+     * @throws IllegalStateException if the histogram is empty
+     */
+    public int max() {
+        return percentile(100);
+    }
+
+    /**
+     * Returns the nearest-rank percentile of the recorded levels: the lowest
+     * level such that at least p percent of the alive cells are at or below
+     * it. For instance percentile(50) is the median and percentile(99) the
+     * p99 energy.
+     *
+     * @param p the percentile, between 0 and 100 inclusive
+     * @return the level at the requested percentile
+     * @throws IllegalArgumentException if p is out of range
+     * @throws IllegalStateException    if the histogram is empty
+     */
+    public int percentile(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("Percentile must be within [0, 100]: " + p);
+        }
+        if (total == 0) {
+            throw new IllegalStateException("No alive cells recorded");
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (Map.Entry<Integer, Integer> e : overflow.headMap(DENSE_MIN, false).entrySet()) {
+            seen += e.getValue();
+            if (seen >= rank) {
+                return e.getKey();
+            }
+        }
+        for (int i = 0; i < dense.length; i++) {
+            seen += dense[i];
+            if (seen >= rank) {
+                return i + DENSE_MIN;
+            }
+        }
+        for (Map.Entry<Integer, Integer> e : overflow.tailMap(DENSE_MAX, false).entrySet()) {
+            seen += e.getValue();
+            if (seen >= rank) {
+                return e.getKey();
+            }
+        }
+        throw new IllegalStateException("Histogram counts are inconsistent");
+    }
+
+    /**
+     * Summarizes the recorded levels as count, min, max, sum and average.
+     *
+     * @return an IntSummaryStatistics equivalent to collecting every level
+     */
+    public IntSummaryStatistics toStatistics() {
+        if (total == 0) {
+            return new IntSummaryStatistics();
+        }
+        return new IntSummaryStatistics(total, min(), max(), sum);
+    }
+}
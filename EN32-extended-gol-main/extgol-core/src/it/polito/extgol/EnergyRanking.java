@@ -0,0 +1,223 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Energy-ordered view over the alive cells of a single Generation.
+ *
+ * Cells are ranked by descending lifePoints as recorded in the generation
+ * snapshot; ties are broken by the cell closest to the top-left corner
+ * (lowest y, then lowest x), so rankings are deterministic.
+ *
+ * Two access paths are offered: select(...) runs a bounded-heap top-K pass
+ * in O(n log k) without building anything permanent, while build(...)
+ * produces a full index that answers any later top-K query in O(k) and
+ * serves each energy level as a contiguous run of cells.
+ */
+final class EnergyRanking {
+
+    private static final Comparator<Cell> TOP_LEFT_FIRST = Comparator
+            .comparingInt(Cell::getY)
+            .thenComparingInt(Cell::getX);
+
+    /** Alive cells in rank order. */
+    private final Cell[] cells;
+
+    /** Recorded lifePoints of each ranked cell, in descending order. */
+    private final int[] energies;
+
+    private EnergyRanking(Cell[] cells, int[] energies) {
+        this.cells = cells;
+        this.energies = energies;
+    }
+
+    /**
+     * Builds the full ranking index for the given generation.
+     *
+     * @param gen the Generation whose alive cells are ranked
+     * @return an EnergyRanking holding every alive cell in rank order
+     */
+    static EnergyRanking build(Generation gen) {
+        Map<Cell, Boolean> states = gen.alivenessView();
+        Cell[] cells = new Cell[states.size()];
+        int size = 0;
+        for (Map.Entry<Cell, Boolean> e : states.entrySet()) {
+            if (e.getValue()) {
+                cells[size++] = e.getKey();
+            }
+        }
+        // positional order first, so the index below doubles as the tie-break
+        Arrays.sort(cells, 0, size, TOP_LEFT_FIRST);
+
+        // (energy descending, position) packed into primitive sort keys
+        long[] keys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long flipped = (long) Integer.MAX_VALUE - gen.energyOf(cells[i]);
+            keys[i] = ((flipped << 32) ^ Long.MIN_VALUE) | i;
+        }
+        Arrays.sort(keys);
+        Cell[] ranked = new Cell[size];
+        int[] energies = new int[size];
+        for (int i = 0; i < size; i++) {
+            ranked[i] = cells[(int) keys[i]];
+            energies[i] = (int) (Integer.MAX_VALUE - ((keys[i] ^ Long.MIN_VALUE) >>> 32));
+        }
+        return new EnergyRanking(ranked, energies);
+    }
+
+    /**
+     * Returns the cells holding exactly the given lifePoints, top-left first.
+     * Each level is a contiguous run of the ranking found by binary search.
+     *
+     * @param level the lifePoints value to look up
+     * @return an immutable List of the cells at that level
+     */
+    List<Cell> atLevel(int level) {
+        int from = firstBelow(level + 1L);
+        int to = firstBelow(level);
+        return List.of(Arrays.copyOfRange(cells, from, to));
+    }
+
+    /**
+     * Groups the ranked cells by level, walking each contiguous run once.
+     *
+     * @return a Map from lifePoints value to the cells at that level
+     */
+    Map<Integer, List<Cell>> byLevel() {
+        Map<Integer, List<Cell>> levels = new HashMap<>();
+        int from = 0;
+        while (from < cells.length) {
+            int to = firstBelow(energies[from]);
+            levels.put(energies[from], List.of(Arrays.copyOfRange(cells, from, to)));
+            from = to;
+        }
+        return levels;
+    }
+
+    /**
+     * Index of the first ranked cell whose energy is strictly below the
+     * bound, i.e. the end of the run of cells at or above it.
+     */
+    private int firstBelow(long bound) {
+        int lo = 0;
+        int hi = energies.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (energies[mid] >= bound) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Returns the first n cells of this ranking.
+     *
+     * @param n the number of cells requested
+     * @return an immutable List of at most n cells in rank order
+     */
+    List<Cell> top(int n) {
+        return List.of(Arrays.copyOf(cells, Math.min(n, cells.length)));
+    }
+
+    /**
+     * Selects the n best-ranked alive cells with a bounded min-heap whose root
+     * is the worst cell kept so far, so each candidate costs at most one
+     * O(log n) replacement.
+     *
+     * @param gen the Generation to analyze
+     * @param n   the number of cells requested
+     * @return an immutable List of at most n cells in rank order
+     */
+    static List<Cell> select(Generation gen, int n) {
+        Map<Cell, Boolean> states = gen.alivenessView();
+        int capacity = Math.min(n, states.size());
+        if (capacity == 0) {
+            return List.of();
+        }
+        Cell[] heap = new Cell[capacity];
+        int[] energies = new int[capacity];
+        int size = 0;
+        for (Map.Entry<Cell, Boolean> e : states.entrySet()) {
+            if (!e.getValue()) {
+                continue;
+            }
+            Cell c = e.getKey();
+            int energy = gen.energyOf(c);
+            if (size < capacity) {
+                heap[size] = c;
+                energies[size] = energy;
+                siftUp(heap, energies, size++);
+            } else if (compare(energy, c, energies[0], heap[0]) < 0) {
+                heap[0] = c;
+                energies[0] = energy;
+                siftDown(heap, energies, 0, size);
+            }
+        }
+        // pop the worst element to the back until the heap is drained
+        for (int last = size - 1; last > 0; last--) {
+            swap(heap, energies, 0, last);
+            siftDown(heap, energies, 0, last);
+        }
+        return List.of(Arrays.copyOf(heap, size));
+    }
+
+    /**
+     * Orders two cells by rank: negative if the first ranks higher.
+     */
+    private static int compare(int e1, Cell c1, int e2, Cell c2) {
+        if (e1 != e2) {
+            return e1 > e2 ? -1 : 1;
+        }
+        if (c1.getY() != c2.getY()) {
+            return Integer.compare(c1.getY(), c2.getY());
+        }
+        return Integer.compare(c1.getX(), c2.getX());
+    }
+
+    private static void siftUp(Cell[] heap, int[] energies, int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            // the worst ranked cell must stay at the root
+            if (compare(energies[i], heap[i], energies[parent], heap[parent]) <= 0) {
+                return;
+            }
+            swap(heap, energies, i, parent);
+            i = parent;
+        }
+    }
+
+    private static void siftDown(Cell[] heap, int[] energies, int i, int size) {
+        while (true) {
+            int worst = i;
+            int left = 2 * i + 1;
+            int right = left + 1;
+            if (left < size && compare(energies[left], heap[left], energies[worst], heap[worst]) > 0) {
+                worst = left;
+            }
+            if (right < size && compare(energies[right], heap[right], energies[worst], heap[worst]) > 0) {
+                worst = right;
+            }
+            if (worst == i) {
+                return;
+            }
+            swap(heap, energies, i, worst);
+            i = worst;
+        }
+    }
+
+    private static void swap(Cell[] heap, int[] energies, int a, int b) {
+        Cell c = heap[a];
+        heap[a] = heap[b];
+        heap[b] = c;
+        int e = energies[a];
+        energies[a] = energies[b];
+        energies[b] = e;
+    }
+}
@@ -6,9 +6,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
-import jakarta.persistence.EntityManager;
-import jakarta.persistence.EntityTransaction;
+import it.polito.extgol.SimulationMetrics.Counter;
+import it.polito.extgol.SimulationMetrics.Phase;
 
 /**
  * Facade coordinating the core operations of the Extended Game of Life
@@ -22,6 +24,16 @@ public class ExtendedGameOfLife {
 
     private Map<Integer, EventType> eventsMap = new HashMap<>();
 
+    /**
+     * Observers notified after every evolved generation.
+     */
+    private final List<GenerationListener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Sink receiving per-phase timings and counters of every evolve step.
+     */
+    private volatile SimulationMetrics metrics = SimulationMetrics.NONE;
+
     public Boolean areInteractable(Cell c, Cell n) {
         return (n.getY() > c.getY()) || (n.getY() == c.getY() && n.getX() > c.getX());
     }
@@ -37,6 +49,10 @@ public class ExtendedGameOfLife {
      * Captures a snapshot of all cells' states into the persistent map for
      * future retrieval.
      *
+     * When an enabled SimulationMetrics sink is installed, the duration of
+     * each phase and the step counters are reported to it once the next
+     * generation is complete.
+     *
      * @param current The current generation snapshot used for evolving to the
      *                next state.
      * @return A new Generation object reflecting the evolved board state.
@@ -52,6 +68,18 @@ public class ExtendedGameOfLife {
                     "Generation must have associated Board and Game!");
         }
 
+        JfrEvents.GenerationEvolved event = new JfrEvents.GenerationEvolved();
+        event.begin();
+        SimulationMetrics sink = this.metrics;
+        boolean measured = sink.isEnabled();
+        long allocatedBefore = measured ? StepMetrics.allocatedBytes() : 0;
+        long mark = measured ? System.nanoTime() : 0;
+        long[] phaseNanos = measured ? new long[Phase.values().length] : null;
+        int interactions = 0;
+        int infections = 0;
+        int births = 0;
+        int deaths = 0;
+
         List<Cell> orderedCells = new ArrayList<>(board.getCellSet());
         orderedCells.sort(Comparator.comparing((Cell c) -> c.getY())
                 .thenComparing((Cell c) -> c.getX()));
@@ -61,17 +89,25 @@ public class ExtendedGameOfLife {
                 Cell neighbor = neighborTile.getCell();
                 if (neighbor != null && areInteractable(c, neighbor)) {
                     c.interact(neighbor);
+                    interactions++;
                 }
             }
         }
+        if (measured) {
+            mark = lap(phaseNanos, Phase.INTERACTION, mark);
+        }
 
         for (Tile tile : board.getTiles()) {
             Cell c = tile.getCell();
             if (c != null && c.getIsInfected() && c.getMood() == CellMood.NAIVE) {
                 c.setMood(CellMood.VAMPIRE);
                 c.setIsInfected(false);
+                infections++;
             }
         }
+        if (measured) {
+            mark = lap(phaseNanos, Phase.INFECTION, mark);
+        }
 
         Map<Cell, Boolean> nextStates = new HashMap<>();
         Map<Cell, Integer> newLPs = new HashMap<>();
@@ -82,7 +118,7 @@ public class ExtendedGameOfLife {
                 throw new IllegalStateException("Missing cell on tile " + tile);
             }
 
-            int prevLP = current.getEnergyStates().get(c);
+            int prevLP = current.energyOf(c);
 
             int base;
             if (currentEvent == EventType.BLOOM
@@ -96,7 +132,7 @@ public class ExtendedGameOfLife {
                 }
             }
 
-            int aliveNeighbors = c.countAliveNeighbors();
+            int aliveNeighbors = board.countAliveNeighbors(c);
             boolean wasAlive = c.isAlive();
             boolean nextState = c.evolve(aliveNeighbors);
 
@@ -153,24 +189,116 @@ public class ExtendedGameOfLife {
                 nextState = false;
             }
 
+            if (nextState != wasAlive) {
+                if (nextState) {
+                    births++;
+                } else {
+                    deaths++;
+                }
+            }
             nextStates.put(c, nextState);
             newLPs.put(c, newLP);
         }
-
-        Generation nextGen = Generation.createNextGeneration(current);
+        if (measured) {
+            mark = lap(phaseNanos, Phase.SURVIVAL, mark);
+        }
 
         for (Map.Entry<Cell, Boolean> e : nextStates.entrySet()) {
             Cell c = e.getKey();
             c.setAlive(e.getValue());
             c.setLifePoints(newLPs.get(c));
+        }
+
+        // the snapshot taken here already records the committed states and
+        // energy histogram, in a single pass over the board
+        Generation nextGen = Generation.createNextGeneration(current);
+        for (Cell c : nextStates.keySet()) {
             c.addGeneration(nextGen);
-            nextGen.setEnergyState(c, newLPs.get(c));
         }
-        nextGen.snapCells();
 
+        if (measured) {
+            lap(phaseNanos, Phase.COMMIT, mark);
+            StepMetrics sample = new StepMetrics(current.getStep());
+            for (Phase phase : Phase.values()) {
+                sample.setNanos(phase, phaseNanos[phase.ordinal()]);
+            }
+            long allocatedAfter = StepMetrics.allocatedBytes();
+            sample.setCount(Counter.CELLS_EVALUATED, nextStates.size());
+            sample.setCount(Counter.INTERACTIONS, interactions);
+            sample.setCount(Counter.BIRTHS, births);
+            sample.setCount(Counter.DEATHS, deaths);
+            sample.setCount(Counter.INFECTIONS, infections);
+            sample.setCount(Counter.ALLOCATED_BYTES,
+                    allocatedBefore < 0 ? -1 : allocatedAfter - allocatedBefore);
+            sink.generationEvolved(sample);
+        }
+
+        if (event.shouldCommit()) {
+            event.gameId = JfrEvents.idOf(game);
+            event.step = nextGen.getStep();
+            event.population = nextGen.getEnergyHistogram().total();
+            event.births = births;
+            event.deaths = deaths;
+            event.churn = births + deaths;
+            event.commit();
+        }
+
+        for (GenerationListener listener : listeners) {
+            listener.onGeneration(nextGen);
+        }
         return nextGen;
     }
 
+    /**
+     * Stores the time elapsed since mark as the duration of the phase.
+     *
+     * @return the current time, marking the start of the next phase
+     */
+    private static long lap(long[] phaseNanos, Phase phase, long mark) {
+        long now = System.nanoTime();
+        phaseNanos[phase.ordinal()] = now - mark;
+        return now;
+    }
+
+    /**
+     * Installs the sink receiving per-phase timings and counters of every
+     * evolve step, replacing the previous one.
+     *
+     * @param metrics the SimulationMetrics to report to, or null to stop
+     *                measuring
+     */
+    public void setSimulationMetrics(SimulationMetrics metrics) {
+        this.metrics = metrics != null ? metrics : SimulationMetrics.NONE;
+    }
+
+    /**
+     * Returns the installed metrics sink.
+     *
+     * @return the current SimulationMetrics, NONE if measuring is off
+     */
+    public SimulationMetrics getSimulationMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Registers a listener to be notified after every evolved generation,
+     * e.g. a FrameExporter recording the run.
+     *
+     * @param listener the GenerationListener to add
+     */
+    public void addGenerationListener(GenerationListener listener) {
+        listeners.add(Objects.requireNonNull(listener, "Listener cannot be null"));
+    }
+
+    /**
+     * Unregisters a previously added listener.
+     *
+     * @param listener the GenerationListener to remove
+     */
+    public void removeGenerationListener(GenerationListener listener) {
+        listeners.remove(listener);
+    }
+
     /**
      * Advances the simulation by evolving the game state through a given number
      * of steps.
@@ -178,15 +306,22 @@ public class ExtendedGameOfLife {
      * Starting from the game's initial generation, this method repeatedly
      * computes the next generation and appends it to the game's history.
      *
+     * A run lasting more than half a second is exposed over JMX as a
+     * SimulationControl and can be paused, throttled or cancelled; a
+     * cancelled run returns early with the generations computed so far.
+     *
      * @param game  The Game instance whose generations will be advanced.
      * @param steps The number of evolution steps (generations) to perform.
      * @return The same Game instance, updated with the new generation.
      */
     public Game run(Game game, int steps) {
         Generation current = game.getStart();
-        for (int i = 0; i < steps; i++) {
-            Generation next = evolve(current);
-            current = next;
+        try (SimulationControl control = SimulationControl.open(game, steps)) {
+            for (int i = 0; i < steps && control.awaitStep(); i++) {
+                Generation next = evolve(current);
+                control.stepCompleted(next);
+                current = next;
+            }
         }
         return game;
     }
@@ -205,6 +340,8 @@ public class ExtendedGameOfLife {
      * evolution. 2. The board then evolves to the next generation, which is
      * added to the game.
      *
+     * Like run(Game, int), a long simulation is exposed over JMX while running.
+     *
      * @param game     The Game instance to run and update.
      * @param steps    The total number of generations to simulate.
      * @param eventMap A map from generation index (0-based) to the EventType to
@@ -220,20 +357,58 @@ public class ExtendedGameOfLife {
         this.eventsMap.clear();
         this.eventsMap.putAll(eventMap);
 
-        for (int gen = 0; gen < steps; gen++) {
-
-            EventType event = eventMap.get(gen);
-            if (event != null && event != EventType.CATACLYSM) {
-                processEvent(game.getBoard(), event);
-                current.snapCells();
+        try (SimulationControl control = SimulationControl.open(game, steps)) {
+            for (int gen = 0; gen < steps && control.awaitStep(); gen++) {
+
+                EventType event = eventMap.get(gen);
+                if (event != null && event != EventType.CATACLYSM) {
+                    JfrEvents.EventApplied applied = new JfrEvents.EventApplied();
+                    applied.begin();
+                    processEvent(game.getBoard(), event);
+                    current.snapCells();
+                    if (applied.shouldCommit()) {
+                        applied.gameId = JfrEvents.idOf(game);
+                        applied.step = gen;
+                        applied.eventType = event.name();
+                        applied.affectedCells = affectedBy(game.getBoard(), event);
+                        applied.commit();
+                    }
+                }
+                Generation next = this.evolve(current);
+                control.stepCompleted(next);
+                current = next;
             }
-            Generation next = this.evolve(current);
-            game.addGeneration(next);
-            current = next;
         }
         return game;
     }
 
+    /**
+     * Counts the cells processEvent(...) has just modified. None of the events
+     * changes what is counted: BLOOM and FAMINE modify every cell, SANCTUARY
+     * the alive ones without killing any.
+     */
+    private static int affectedBy(Board board, EventType event) {
+        int affected = 0;
+        for (Tile t : board.getTiles()) {
+            Cell c = t.getCell();
+            if (c == null) {
+                continue;
+            }
+            switch (event) {
+                case BLOOM:
+                case FAMINE:
+                    affected++;
+                    break;
+                case SANCTUARY:
+                    affected += c.isAlive() ? 1 : 0;
+                    break;
+                default:
+                    break;
+            }
+        }
+        return affected;
+    }
+
     private void processEvent(Board board, EventType event) {
         switch (event) {
             case BLOOM:
@@ -330,24 +505,21 @@ public class ExtendedGameOfLife {
      * @param game The Game instance to persist or update.
      */
     public void saveGame(Game game) {
-        EntityManager em = JPAUtil.getEntityManager();
-        EntityTransaction tx = em.getTransaction();
-        try {
-            tx.begin();
-            if (game.getId() == null) {
-                em.persist(game);
-            } else {
-                em.merge(game);
-            }
-            tx.commit();
-        } catch (RuntimeException e) {
-            if (tx.isActive()) {
-                tx.rollback();
-            }
-            throw e;
-        } finally {
-            em.close();
-        }
+        GameStore.get().save(game);
+    }
+
+    /**
+     * Persists the provided Game like saveGame(...), but in the background:
+     * the call returns at once, so that several games can be saved in
+     * parallel or the simulation can go on. The Game must not be modified
+     * until the returned future completes.
+     *
+     * @param game The Game instance to persist or update.
+     * @return A future completing once the game is saved, or exceptionally
+     *         if saving fails.
+     */
+    public CompletableFuture<Void> saveGameAsync(Game game) {
+        return GameStore.get().saveAsync(game);
     }
 
     /**
@@ -0,0 +1,476 @@
+package it.polito.extgol;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records a simulation as a sequence of binary Netpbm images, one file per
+ * exported generation.
+ *
+ * PBM frames (P4) show aliveness only, alive cells in black. PPM frames (P6)
+ * are colored by CellType, CellMood or lifePoints according to the chosen
+ * ColorMode, dead cells being black. Only every stride-th generation is
+ * exported, and each side of the board can be downscaled by an integer
+ * factor: a PBM pixel is set if any cell of its block is alive, a PPM pixel
+ * averages the colors of its block.
+ *
+ * The exporter is a GenerationListener: register it on ExtendedGameOfLife and
+ * every evolved generation is rasterized on the simulation thread into one of
+ * a few pooled pixel buffers, which a background thread then writes through
+ * a FileChannel. Buffers are reused for the whole run, so a long export is
+ * bound by I/O rather than allocation; if the writer falls behind, the
+ * simulation waits for a free buffer instead of queuing more frames. If the
+ * writer fails, the next frame or close() reports its error.
+ *
+ * pbm(...) and ppm(...) write one file per frame, named frame-NNNNNN.pbm or
+ * frame-NNNNNN.ppm after the generation step, which costs a file open and
+ * close per frame. pbmStream(...) and ppmStream(...) instead append every
+ * frame to a single file, kept open for the whole run: Netpbm allows images
+ * back to back, and tools such as ffmpeg read them as one image stream.
+ * close() must be called to flush pending frames and stop the writer.
+ */
+public class FrameExporter implements GenerationListener, AutoCloseable {
+
+    /**
+     * Netpbm flavor written by the exporter.
+     */
+    public enum Format {
+        /** Portable bitmap, one bit per pixel. */
+        PBM,
+        /** Portable pixmap, 8-bit RGB per pixel. */
+        PPM
+    }
+
+    /**
+     * How alive cells are colored in PPM frames.
+     */
+    public enum ColorMode {
+        /** One color per CellType. */
+        TYPE,
+        /** One color per CellMood. */
+        MOOD,
+        /** Blue-to-red ramp over the generation's lifePoints range. */
+        ENERGY
+    }
+
+    /** Number of pixel buffers shared by the simulation and the writer. */
+    private static final int POOL_SIZE = 3;
+
+    private static final int WHITE = 0xFFFFFF;
+
+    /** How often a simulation waiting for a buffer checks that the writer still runs. */
+    private static final long WRITER_CHECK_MILLIS = 100;
+
+    private static final Set<StandardOpenOption> FILE_OPTIONS = EnumSet.of(
+            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+
+    /** Marker telling the writer thread to stop. */
+    private static final Frame END = new Frame();
+
+    /** Directory receiving one file per frame, null in stream mode. */
+    private final Path directory;
+
+    /** File receiving every frame in stream mode, null otherwise. */
+    private final FileChannel stream;
+    private final Format format;
+    private final ColorMode colorMode;
+    private final int stride;
+    private final int scale;
+
+    private final BlockingQueue<Frame> free = new ArrayBlockingQueue<>(POOL_SIZE);
+    private final BlockingQueue<Frame> ready = new ArrayBlockingQueue<>(POOL_SIZE + 1);
+    private final Thread writer;
+
+    /** Error that stopped the writer, reported to the simulation thread. */
+    private volatile Throwable failure;
+
+    /** Frames created so far, up to POOL_SIZE (simulation thread only). */
+    private int allocated;
+
+    /** Netpbm header matching the current frame size. */
+    private byte[] header = new byte[0];
+    private int headerWidth = -1;
+    private int headerHeight = -1;
+
+    private boolean closed;
+
+    /**
+     * Pooled pixel buffer together with the step it currently holds.
+     */
+    private static final class Frame {
+        private ByteBuffer buffer = ByteBuffer.allocateDirect(0);
+        private int step;
+    }
+
+    private FrameExporter(Path target, boolean single, Format format, ColorMode colorMode, int stride, int scale)
+            throws IOException {
+        if (stride < 1) {
+            throw new IllegalArgumentException("Stride must be positive: " + stride);
+        }
+        if (scale < 1) {
+            throw new IllegalArgumentException("Scale must be positive: " + scale);
+        }
+        if (single) {
+            Objects.requireNonNull(target, "File cannot be null");
+            Path parent = target.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            this.directory = null;
+            this.stream = FileChannel.open(target, FILE_OPTIONS);
+        } else {
+            this.directory = Files.createDirectories(Objects.requireNonNull(target, "Directory cannot be null"));
+            this.stream = null;
+        }
+        this.format = format;
+        this.colorMode = colorMode;
+        this.stride = stride;
+        this.scale = scale;
+        this.writer = new Thread(this::drain, "extgol-frame-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Creates an exporter writing black-and-white PBM frames.
+     *
+     * @param directory the directory receiving the frames, created if missing
+     * @param stride    export one generation every stride steps (1 = all)
+     * @param scale     downscaling factor applied to both board sides (1 = none)
+     * @return a started FrameExporter
+     * @throws IOException if the directory cannot be created
+     */
+    public static FrameExporter pbm(Path directory, int stride, int scale) throws IOException {
+        return new FrameExporter(directory, false, Format.PBM, null, stride, scale);
+    }
+
+    /**
+     * Creates an exporter appending black-and-white PBM frames to one file.
+     *
+     * @param file   the file receiving the frames, replaced if it exists
+     * @param stride export one generation every stride steps (1 = all)
+     * @param scale  downscaling factor applied to both board sides (1 = none)
+     * @return a started FrameExporter
+     * @throws IOException if the file cannot be created
+     */
+    public static FrameExporter pbmStream(Path file, int stride, int scale) throws IOException {
+        return new FrameExporter(file, true, Format.PBM, null, stride, scale);
+    }
+
+    /**
+     * Creates an exporter writing colored PPM frames.
+     *
+     * @param directory the directory receiving the frames, created if missing
+     * @param colorMode the attribute used to color alive cells
+     * @param stride    export one generation every stride steps (1 = all)
+     * @param scale     downscaling factor applied to both board sides (1 = none)
+     * @return a started FrameExporter
+     * @throws IOException if the directory cannot be created
+     */
+    public static FrameExporter ppm(Path directory, ColorMode colorMode, int stride, int scale)
+            throws IOException {
+        Objects.requireNonNull(colorMode, "Color mode cannot be null");
+        return new FrameExporter(directory, false, Format.PPM, colorMode, stride, scale);
+    }
+
+    /**
+     * Creates an exporter appending colored PPM frames to one file.
+     *
+     * @param file      the file receiving the frames, replaced if it exists
+     * @param colorMode the attribute used to color alive cells
+     * @param stride    export one generation every stride steps (1 = all)
+     * @param scale     downscaling factor applied to both board sides (1 = none)
+     * @return a started FrameExporter
+     * @throws IOException if the file cannot be created
+     */
+    public static FrameExporter ppmStream(Path file, ColorMode colorMode, int stride, int scale)
+            throws IOException {
+        Objects.requireNonNull(colorMode, "Color mode cannot be null");
+        return new FrameExporter(file, true, Format.PPM, colorMode, stride, scale);
+    }
+
+    /**
+     * Rasterizes the generation into a pooled buffer and queues it for
+     * writing, provided its step falls on the configured stride. The initial
+     * generation is not produced by evolve, so pass it explicitly to include
+     * it in the sequence.
+     *
+     * @param generation the Generation to export
+     * @throws UncheckedIOException  if an earlier frame could not be written
+     * @throws IllegalStateException if the exporter was closed, the writer
+     *                               stopped on another error, or the thread
+     *                               was interrupted while waiting for a buffer
+     */
+    @Override
+    public void onGeneration(Generation generation) {
+        if (generation.getStep() % stride != 0) {
+            return;
+        }
+        if (closed) {
+            throw new IllegalStateException("Frame exporter is closed");
+        }
+        checkWriter();
+        try {
+            Frame frame = free.poll();
+            if (frame == null) {
+                frame = allocated < POOL_SIZE ? newFrame() : awaitFree();
+            }
+            rasterize(generation, frame);
+            ready.put(frame);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while exporting frame " + generation.getStep(), e);
+        }
+    }
+
+    /**
+     * Waits for every queued frame to be written, then stops the writer.
+     *
+     * @throws IOException if any frame could not be written, or the writer
+     *                     stopped on another error
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            // never blocks: the queue has room for every pooled frame and END
+            ready.put(END);
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while flushing frames");
+        }
+        Throwable error = failure;
+        if (stream != null) {
+            try {
+                stream.close();
+            } catch (IOException e) {
+                error = error != null ? error : e;
+            }
+        }
+        if (error instanceof IOException io) {
+            throw io;
+        }
+        if (error != null) {
+            throw new IOException("Frame export failed", error);
+        }
+    }
+
+    private Frame newFrame() {
+        allocated++;
+        return new Frame();
+    }
+
+    /**
+     * Waits for the writer to hand a buffer back, as long as it runs.
+     */
+    private Frame awaitFree() throws InterruptedException {
+        while (true) {
+            Frame frame = free.poll(WRITER_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+            if (frame != null) {
+                return frame;
+            }
+            checkWriter();
+        }
+    }
+
+    /**
+     * Throws the error that stopped the writer, if it stopped.
+     */
+    private void checkWriter() {
+        Throwable error = failure;
+        if (error instanceof IOException io) {
+            throw new UncheckedIOException("Frame export failed", io);
+        }
+        if (error != null) {
+            throw new IllegalStateException("Frame export failed", error);
+        }
+        if (!writer.isAlive()) {
+            throw new IllegalStateException("Frame writer stopped");
+        }
+    }
+
+    /**
+     * Writer thread loop: writes queued frames and hands their buffers back,
+     * until END or the first error, which is kept for the simulation thread.
+     */
+    private void drain() {
+        try {
+            while (true) {
+                Frame frame = ready.take();
+                if (frame == END) {
+                    return;
+                }
+                write(frame);
+                free.put(frame);
+            }
+        } catch (InterruptedException e) {
+            failure = new InterruptedIOException("Frame writer interrupted");
+        } catch (Throwable e) {
+            failure = e;
+        }
+    }
+
+    private void write(Frame frame) throws IOException {
+        if (stream != null) {
+            writeFully(stream, frame.buffer);
+            return;
+        }
+        String name = String.format("frame-%06d.%s", frame.step, format == Format.PBM ? "pbm" : "ppm");
+        try (FileChannel channel = FileChannel.open(directory.resolve(name), FILE_OPTIONS)) {
+            writeFully(channel, frame.buffer);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Fills the frame buffer with the header and pixels of the generation.
+     */
+    private void rasterize(Generation generation, Frame frame) {
+        Board board = generation.getBoard();
+        int width = (board.getWidth() + scale - 1) / scale;
+        int height = (board.getHeight() + scale - 1) / scale;
+        if (width != headerWidth || height != headerHeight) {
+            String magic = format == Format.PBM ? "P4" : "P6";
+            String depth = format == Format.PBM ? "" : "255\n";
+            header = (magic + "\n" + width + " " + height + "\n" + depth).getBytes(StandardCharsets.US_ASCII);
+            headerWidth = width;
+            headerHeight = height;
+        }
+        int pixels = format == Format.PBM ? (width + 7) / 8 * height : width * height * 3;
+        if (frame.buffer.capacity() < header.length + pixels) {
+            frame.buffer = ByteBuffer.allocateDirect(header.length + pixels);
+        }
+        ByteBuffer out = frame.buffer;
+        out.clear();
+        out.put(header);
+        if (format == Format.PBM) {
+            rasterizeBitmap(generation, width, height, out);
+        } else {
+            rasterizePixmap(generation, width, height, out);
+        }
+        out.flip();
+        frame.step = generation.getStep();
+    }
+
+    private void rasterizeBitmap(Generation generation, int width, int height, ByteBuffer out) {
+        for (int py = 0; py < height; py++) {
+            int bits = 0;
+            int count = 0;
+            for (int px = 0; px < width; px++) {
+                bits = (bits << 1) | (anyAlive(generation, px * scale, py * scale) ? 1 : 0);
+                if (++count == 8) {
+                    out.put((byte) bits);
+                    bits = 0;
+                    count = 0;
+                }
+            }
+            if (count > 0) {
+                // rows are padded to a whole byte
+                out.put((byte) (bits << (8 - count)));
+            }
+        }
+    }
+
+    private boolean anyAlive(Generation generation, int x0, int y0) {
+        for (int y = y0; y < y0 + scale; y++) {
+            for (int x = x0; x < x0 + scale; x++) {
+                if (generation.isAliveAt(x, y)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private void rasterizePixmap(Generation generation, int width, int height, ByteBuffer out) {
+        Board board = generation.getBoard();
+        EnergyHistogram histogram = colorMode == ColorMode.ENERGY ? generation.getEnergyHistogram() : null;
+        int low = histogram != null && histogram.total() > 0 ? histogram.min() : 0;
+        int high = histogram != null && histogram.total() > 0 ? histogram.max() : 0;
+        for (int py = 0; py < height; py++) {
+            for (int px = 0; px < width; px++) {
+                int r = 0;
+                int g = 0;
+                int b = 0;
+                int cells = 0;
+                for (int y = py * scale; y < Math.min(board.getHeight(), (py + 1) * scale); y++) {
+                    for (int x = px * scale; x < Math.min(board.getWidth(), (px + 1) * scale); x++) {
+                        cells++;
+                        if (generation.isAliveAt(x, y)) {
+                            int rgb = color(generation, board.tileAt(x, y), low, high);
+                            r += rgb >>> 16;
+                            g += (rgb >>> 8) & 0xFF;
+                            b += rgb & 0xFF;
+                        }
+                    }
+                }
+                out.put((byte) (r / cells));
+                out.put((byte) (g / cells));
+                out.put((byte) (b / cells));
+            }
+        }
+    }
+
+    /**
+     * Returns the packed RGB color of an alive cell.
+     */
+    private int color(Generation generation, Tile tile, int low, int high) {
+        Cell cell = tile == null ? null : tile.getCell();
+        if (cell == null) {
+            return WHITE;
+        }
+        switch (colorMode) {
+            case TYPE:
+                if (cell.getType() == null) {
+                    return WHITE;
+                }
+                switch (cell.getType()) {
+                    case HIGHLANDER:
+                        return 0xE63946;
+                    case LONER:
+                        return 0x457B9D;
+                    case SOCIAL:
+                        return 0x2A9D8F;
+                    default:
+                        return WHITE;
+                }
+            case MOOD:
+                if (cell.getMood() == CellMood.VAMPIRE) {
+                    return 0xC80000;
+                } else if (cell.getMood() == CellMood.HEALER) {
+                    return 0x00C850;
+                }
+                return WHITE;
+            case ENERGY:
+            default:
+                double t = high > low ? (double) (generation.energyOf(cell) - low) / (high - low) : 1.0;
+                t = Math.max(0, Math.min(1, t));
+                int red = (int) (255 * t);
+                int green = (int) (255 * (1 - Math.abs(2 * t - 1)));
+                int blue = (int) (255 * (1 - t));
+                return (red << 16) | (green << 8) | blue;
+        }
+    }
+}
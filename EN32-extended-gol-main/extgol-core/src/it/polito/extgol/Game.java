@@ -6,22 +6,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import jakarta.persistence.CascadeType;
-import jakarta.persistence.CollectionTable;
-import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
-import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.MapKeyColumn;
-import jakarta.persistence.OneToMany;
-import jakarta.persistence.OneToOne;
-import jakarta.persistence.OrderColumn;
-import jakarta.persistence.Table;
-
 /**
  * Entity representing a Game of Life simulation instance.
  *
@@ -29,18 +13,13 @@ import jakarta.persistence.Table;
  * simulation. Provides factory methods for classic and extended game setups, as
  * well as operations for evolving and querying game state.
  */
-@Entity
-@Table(name = "games")
 public class Game {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     /**
      * Human-readable name for this game instance.
      */
-    @Column(nullable = false, unique = true)
     private String name;
 
     /**
@@ -49,13 +28,6 @@ public class Game {
      * One board per game; cascade so the board is persisted/removed along with
      * the game. Stored in TILE table as board_id FK.
      */
-    @OneToOne(
-            cascade = CascadeType.ALL,
-            orphanRemoval = true,
-            fetch = FetchType.LAZY,
-            optional = false
-    )
-    @JoinColumn(name = "board_id", nullable = false, unique = true)
     private Board board;
 
     /**
@@ -64,22 +36,8 @@ public class Game {
      * All generations (including initial) in time order. Uses an ORDER_COLUMN
      * so the DB keeps the sequence.
      */
-    @OneToMany(
-            mappedBy = "game",
-            cascade = CascadeType.ALL,
-            orphanRemoval = true,
-            fetch = FetchType.LAZY
-    )
-    @OrderColumn(name = "generation_index")
     private List<Generation> generations = new ArrayList<>();
 
-    @ElementCollection(fetch = FetchType.EAGER)
-    @CollectionTable(
-            name = "game_events",
-            joinColumns = @JoinColumn(name = "game_id")
-    )
-    @MapKeyColumn(name = "generation_index")
-    @Column(name = "event_type", nullable = false)
     private Map<Integer, EventType> eventSchedule = new HashMap<>();
 
     /**
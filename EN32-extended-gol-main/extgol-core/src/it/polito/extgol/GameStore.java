@@ -0,0 +1,58 @@
+package it.polito.extgol;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Service provider interface through which the engine persists games.
+ *
+ * The core module only knows this interface: the implementation is
+ * discovered with java.util.ServiceLoader the first time a game is saved,
+ * so compute-only deployments run without any persistence library on the
+ * classpath. extgol-persistence provides the JPA-backed implementation.
+ */
+public interface GameStore {
+
+    /**
+     * Persists a new game, or merges the changes of an already saved one,
+     * together with its board, tiles, cells and generations.
+     *
+     * @param game the Game to save
+     */
+    void save(Game game);
+
+    /**
+     * Saves the game like save(...), without blocking the caller. The game
+     * must not be modified until the returned future completes.
+     *
+     * The default implementation runs save(...) on the common fork-join
+     * pool; stores with a dedicated executor override it.
+     *
+     * @param game the Game to save
+     * @return a future completing once the game is saved, or exceptionally
+     *         if saving fails
+     */
+    default CompletableFuture<Void> saveAsync(Game game) {
+        return CompletableFuture.runAsync(() -> save(game));
+    }
+
+    /**
+     * Starts any slow initialization in the background, so that a later
+     * save(...) does not pay for it. Implementations without such a cost
+     * return a completed future.
+     *
+     * @return a future completing when the store is ready
+     */
+    default CompletableFuture<Void> warmUp() {
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Returns the GameStore found on the classpath.
+     *
+     * @return the first registered GameStore
+     * @throws IllegalStateException if no implementation is available
+     */
+    static GameStore get() {
+        return GameStoreLookup.get();
+    }
+}
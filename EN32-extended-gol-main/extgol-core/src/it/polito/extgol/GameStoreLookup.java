@@ -0,0 +1,32 @@
+package it.polito.extgol;
+
+import java.util.ServiceLoader;
+
+/**
+ * Resolves and caches the GameStore implementation. A failed lookup is not
+ * cached, so a provider added later (e.g. by a plugin class loader) is still
+ * found.
+ */
+final class GameStoreLookup {
+
+    private static volatile GameStore store;
+
+    private GameStoreLookup() {} // static lookup only
+
+    static GameStore get() {
+        GameStore found = store;
+        if (found == null) {
+            synchronized (GameStoreLookup.class) {
+                found = store;
+                if (found == null) {
+                    found = ServiceLoader.load(GameStore.class)
+                            .findFirst()
+                            .orElseThrow(() -> new IllegalStateException(
+                                    "No GameStore available: add extgol-persistence to the classpath"));
+                    store = found;
+                }
+            }
+        }
+        return found;
+    }
+}
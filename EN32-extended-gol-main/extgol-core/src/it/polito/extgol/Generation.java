@@ -1,6 +1,8 @@
 package it.polito.extgol;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -8,20 +10,6 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.stream.Collectors;
 
-import jakarta.persistence.CollectionTable;
-import jakarta.persistence.Column;
-import jakarta.persistence.ElementCollection;
-import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.MapKeyJoinColumn;
-import jakarta.persistence.Table;
-import jakarta.persistence.UniqueConstraint;
-
 /**
  * Entity representing a generation within a Game of Life simulation. Each
  * generation records the game state of every cell on the board at its given
@@ -30,61 +18,56 @@ import jakarta.persistence.UniqueConstraint;
  * Use createInitial(...) to construct the initial state (step 0), and
  * createNextGeneration(...) to advance from a previous generation.
  */
-@Entity
-@Table(name = "generation", uniqueConstraints = @UniqueConstraint(columnNames = {"game_id", "step"}))
 public class Generation {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     /**
      * Sequential step index (0 for initial generation).
      */
-    @Column(nullable = false)
     private Integer step;
 
     /**
      * Owning Game instance.
      */
-    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "game_id", nullable = false)
     private Game game;
 
     /**
      * Board context for boundary checks.
      */
-    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "board_id", nullable = false)
     private Board board;
 
     /**
      * Persistent map of each Cell to its alive state at this generation. Keys
      * are Cell entities; values are true for alive, false for dead.
      */
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "generation_state", joinColumns = {
-        // This maps generation_state.generation_id → generation.id
-        @JoinColumn(name = "generation_id", referencedColumnName = "id"),
-        // These map generation_state.game_id → generation.game_id
-        // generation_state.board_id → generation.board_id
-        @JoinColumn(name = "game_id", referencedColumnName = "game_id"),
-        @JoinColumn(name = "board_id", referencedColumnName = "board_id")
-    })
-    @MapKeyJoinColumn(name = "cell_id")
-    @Column(name = "is_alive", nullable = false)
     private Map<Cell, Boolean> cellAlivenessStates = new HashMap<>();
 
-    @ElementCollection(fetch = FetchType.LAZY)
-    @CollectionTable(name = "generation_energy", joinColumns = {
-        @JoinColumn(name = "generation_id", referencedColumnName = "id"),
-        @JoinColumn(name = "game_id", referencedColumnName = "game_id"),
-        @JoinColumn(name = "board_id", referencedColumnName = "board_id")
-    })
-    @MapKeyJoinColumn(name = "cell_id")
-    @Column(name = "life_points", nullable = false, columnDefinition = "integer")
     private Map<Cell, Integer> cellEnergyStates = new HashMap<>();
 
+    /**
+     * Energy-ordered index of the alive cells, built on demand and dropped
+     * whenever the snapshot changes. Not persisted.
+     */
+    private transient EnergyRanking energyRanking;
+
+    /**
+     * Number of ranking queries answered since the last snapshot change.
+     */
+    private transient int rankingQueries;
+
+    /**
+     * Histogram of the alive cells' lifePoints, kept in step with the
+     * snapshot maps. Not persisted; rebuilt on demand after loading.
+     */
+    private transient EnergyHistogram energyHistogram;
+
+    /**
+     * Row-major bitmap of the aliveness snapshot (bit y * width + x), so
+     * renderers can test positions without hashing cells. Not persisted.
+     */
+    private transient BitSet aliveMask;
+
     /**
      * Persistent map of each Cell to its energy level (life points) at this
      * generation. Keys are Cell entities; values are the amount of lifepoints
@@ -234,8 +217,11 @@ public class Generation {
      * @throws ExtendedGameOfLifeException if any Tile does not contain a Cell
      */
     public Map<Cell, Boolean> snapCells() {
+        invalidateIndexes();
         this.cellAlivenessStates.clear();
         this.cellEnergyStates.clear();
+        EnergyHistogram histogram = new EnergyHistogram();
+        BitSet mask = new BitSet(board.getWidth() * board.getHeight());
         for (Tile tile : board.getTiles()) {
             Cell cell = tile.getCell();
             if (cell == null) {
@@ -247,7 +233,13 @@ public class Generation {
                 lp = -1;
             }
             this.cellEnergyStates.put(cell, cell.getLifePoints());
+            if (cell.isAlive()) {
+                histogram.add(cell.getLifePoints());
+                markAlive(mask, cell);
+            }
         }
+        this.energyHistogram = histogram;
+        this.aliveMask = mask;
         return Map.copyOf(this.cellAlivenessStates);
     }
 
@@ -426,11 +418,143 @@ public class Generation {
      * cell’s alive/dead state
      */
     public void setCellAlivenessStates(Map<Cell, Boolean> cellAlivenessStates) {
+        invalidateIndexes();
+        this.energyHistogram = null;
+        this.aliveMask = null;
         this.cellAlivenessStates = cellAlivenessStates;
     }
 
     public void setEnergyState(Cell cell, int energy) {
-        cellEnergyStates.put(cell, energy);
+        invalidateIndexes();
+        Integer previous = cellEnergyStates.put(cell, energy);
+        if (energyHistogram != null && Boolean.TRUE.equals(cellAlivenessStates.get(cell))) {
+            if (previous != null) {
+                energyHistogram.remove(previous);
+            }
+            energyHistogram.add(energy);
+        }
+    }
+
+    /**
+     * Returns the histogram of lifePoints held by the alive cells of this
+     * generation, maintained as states are recorded.
+     *
+     * @return the EnergyHistogram of this generation
+     */
+    public EnergyHistogram getEnergyHistogram() {
+        if (energyHistogram == null) {
+            EnergyHistogram histogram = new EnergyHistogram();
+            for (Map.Entry<Cell, Boolean> e : cellAlivenessStates.entrySet()) {
+                if (e.getValue()) {
+                    histogram.add(energyOf(e.getKey()));
+                }
+            }
+            energyHistogram = histogram;
+        }
+        return energyHistogram;
+    }
+
+    /**
+     * Returns the energy index of this generation, building it if needed.
+     *
+     * @return the EnergyRanking over the alive cells of this generation
+     */
+    EnergyRanking energyIndex() {
+        if (energyRanking == null) {
+            energyRanking = EnergyRanking.build(this);
+        }
+        return energyRanking;
+    }
+
+    /**
+     * Returns the n alive cells with the highest recorded lifePoints, ties
+     * going to the cell closest to the top-left corner.
+     *
+     * The first query on a generation runs a bounded-heap selection; from the
+     * second one on a full energy index is built and kept, so repeated
+     * queries (e.g., a leaderboard polled many times per step) cost O(n).
+     *
+     * @param n the number of cells requested
+     * @return an immutable List of at most n cells in descending energy order
+     */
+    List<Cell> rankByEnergy(int n) {
+        EnergyRanking index = this.energyRanking;
+        if (index == null && ++rankingQueries > 1) {
+            index = this.energyRanking = EnergyRanking.build(this);
+        }
+        return index != null ? index.top(n) : EnergyRanking.select(this, n);
+    }
+
+    /**
+     * Read-only view of the aliveness snapshot, avoiding the defensive copy
+     * made by getCellAlivenessStates() for internal analytics.
+     *
+     * @return an unmodifiable view of the Cell to aliveness map
+     */
+    Map<Cell, Boolean> alivenessView() {
+        return Collections.unmodifiableMap(cellAlivenessStates);
+    }
+
+    /**
+     * Returns the number of state entries recorded in this generation, i.e.
+     * the rows of its aliveness and energy collection tables.
+     *
+     * @return the size of both state maps combined
+     */
+    int stateRowCount() {
+        return cellAlivenessStates.size() + cellEnergyStates.size();
+    }
+
+    /**
+     * Returns the lifePoints recorded for the given cell in this generation.
+     *
+     * @param cell the Cell to look up
+     * @return the recorded lifePoints, or the cell's current ones if none
+     */
+    int energyOf(Cell cell) {
+        Integer energy = cellEnergyStates.get(cell);
+        return energy != null ? energy : cell.getLifePoints();
+    }
+
+    /**
+     * Tells whether the cell at (x, y) is alive in this generation's snapshot.
+     *
+     * @param x the column index
+     * @param y the row index
+     * @return true if that position holds an alive cell; false otherwise,
+     * including positions outside the board
+     */
+    public boolean isAliveAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= board.getWidth() || y >= board.getHeight()) {
+            return false;
+        }
+        BitSet mask = this.aliveMask;
+        if (mask == null) {
+            mask = new BitSet(board.getWidth() * board.getHeight());
+            for (Map.Entry<Cell, Boolean> e : cellAlivenessStates.entrySet()) {
+                if (e.getValue()) {
+                    markAlive(mask, e.getKey());
+                }
+            }
+            this.aliveMask = mask;
+        }
+        return mask.get(y * board.getWidth() + x);
+    }
+
+    private void markAlive(BitSet mask, Cell cell) {
+        int x = cell.getX();
+        int y = cell.getY();
+        if (x >= 0 && y >= 0 && x < board.getWidth() && y < board.getHeight()) {
+            mask.set(y * board.getWidth() + x);
+        }
+    }
+
+    /**
+     * Drops every derived index after a change to the snapshot.
+     */
+    private void invalidateIndexes() {
+        this.energyRanking = null;
+        this.rankingQueries = 0;
     }
 
 }
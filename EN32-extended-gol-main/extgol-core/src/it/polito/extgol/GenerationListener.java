@@ -0,0 +1,20 @@
+package it.polito.extgol;
+
+/**
+ * Callback notified by ExtendedGameOfLife each time a new generation has
+ * been computed.
+ *
+ * Listeners run synchronously on the simulation thread right after the
+ * generation is committed, while the board still reflects its states; work
+ * that is slow should be handed off to another thread.
+ */
+@FunctionalInterface
+public interface GenerationListener {
+
+    /**
+     * Invoked once for every newly evolved generation.
+     *
+     * @param generation the Generation that was just computed
+     */
+    void onGeneration(Generation generation);
+}
@@ -1,8 +1,5 @@
 package it.polito.extgol;
 
-import jakarta.persistence.Entity;
-
-@Entity
 public class Highlander extends Cell {
 
     private int countGenerations= 0;
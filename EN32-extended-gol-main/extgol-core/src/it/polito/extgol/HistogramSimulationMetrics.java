@@ -0,0 +1,115 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.Map;
+
+import it.polito.extgol.SimulationMetrics.Counter;
+import it.polito.extgol.SimulationMetrics.Phase;
+
+/**
+ * In-process SimulationMetrics sink aggregating every reported step.
+ *
+ * Step and phase durations go into log-linear histograms (about 3%
+ * precision), from which latency percentiles such as p50 and p99 can be
+ * read at any time; counters are summed over all steps. Safe to share
+ * between simulations running on different threads.
+ */
+public class HistogramSimulationMetrics implements SimulationMetrics {
+
+    private final LatencyHistogram steps = new LatencyHistogram();
+
+    private final Map<Phase, LatencyHistogram> phases = new EnumMap<>(Phase.class);
+
+    private final long[] totals = new long[Counter.values().length];
+
+    public HistogramSimulationMetrics() {
+        for (Phase p : Phase.values()) {
+            phases.put(p, new LatencyHistogram());
+        }
+    }
+
+    @Override
+    public synchronized void generationEvolved(StepMetrics sample) {
+        steps.record(sample.totalNanos());
+        for (Phase p : Phase.values()) {
+            phases.get(p).record(sample.nanos(p));
+        }
+        for (Counter c : Counter.values()) {
+            long value = sample.count(c);
+            if (value > 0) {
+                totals[c.ordinal()] += value;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of steps recorded so far.
+     *
+     * @return the step count
+     */
+    public synchronized long getSteps() {
+        return steps.total();
+    }
+
+    /**
+     * Returns a percentile of the whole-step latency.
+     *
+     * @param p the percentile, between 0 and 100 inclusive
+     * @return the latency in nanoseconds, 0 if no step was recorded
+     * @throws IllegalArgumentException if p is out of range
+     */
+    public synchronized long stepPercentile(double p) {
+        return steps.percentile(p);
+    }
+
+    /**
+     * Returns a percentile of the latency of one phase.
+     *
+     * @param phase the Phase to look up
+     * @param p     the percentile, between 0 and 100 inclusive
+     * @return the latency in nanoseconds, 0 if no step was recorded
+     * @throws IllegalArgumentException if p is out of range
+     */
+    public synchronized long phasePercentile(Phase phase, double p) {
+        return phases.get(phase).percentile(p);
+    }
+
+    /**
+     * Returns the median step latency.
+     *
+     * @return the p50 latency in nanoseconds
+     */
+    public long getP50() {
+        return stepPercentile(50);
+    }
+
+    /**
+     * Returns the 99th percentile of the step latency.
+     *
+     * @return the p99 latency in nanoseconds
+     */
+    public long getP99() {
+        return stepPercentile(99);
+    }
+
+    /**
+     * Returns the sum of a counter over all recorded steps. Unmeasurable
+     * values (-1) are not summed.
+     *
+     * @param counter the Counter to look up
+     * @return its running total
+     */
+    public synchronized long total(Counter counter) {
+        return totals[counter.ordinal()];
+    }
+
+    /**
+     * Forgets everything recorded so far, e.g. after a warm-up.
+     */
+    public synchronized void reset() {
+        steps.reset();
+        phases.values().forEach(LatencyHistogram::reset);
+        Arrays.fill(totals, 0);
+    }
+}
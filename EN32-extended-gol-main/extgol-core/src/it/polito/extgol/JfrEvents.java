@@ -0,0 +1,85 @@
+package it.polito.extgol;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events emitted by the engine; extgol-persistence adds
+ * its own in PersistenceEvents.
+ *
+ * Every event is timed (begin() before the work, commit() after it) and
+ * lives in the "Extended Game of Life" category, so a recording shows
+ * simulation steps and persistence operations on the same timeline as GC,
+ * locks and I/O. Payload fields are only computed when shouldCommit() says
+ * the event is enabled and above its threshold, which keeps the cost of a
+ * disabled event to a couple of field writes.
+ *
+ * Enable them in a recording with e.g.
+ * -XX:StartFlightRecording=settings=profile,+it.polito.extgol.GenerationEvolved#enabled=true
+ * or programmatically through jdk.jfr.Recording.enable("it.polito.extgol.*").
+ */
+final class JfrEvents {
+
+    private JfrEvents() {} // event holder only
+
+    @Name("it.polito.extgol.GenerationEvolved")
+    @Label("Generation Evolved")
+    @Category({"Extended Game of Life", "Simulation"})
+    @Description("One evolve step, from the current generation to the next")
+    @StackTrace(false)
+    static final class GenerationEvolved extends Event {
+        @Label("Game Id")
+        long gameId;
+
+        @Label("Step")
+        @Description("Step of the evolved generation")
+        int step;
+
+        @Label("Population")
+        @Description("Alive cells in the next generation")
+        int population;
+
+        @Label("Births")
+        int births;
+
+        @Label("Deaths")
+        int deaths;
+
+        @Label("Churn")
+        @Description("Births plus deaths")
+        int churn;
+    }
+
+    @Name("it.polito.extgol.EventApplied")
+    @Label("Event Applied")
+    @Category({"Extended Game of Life", "Simulation"})
+    @Description("A scheduled EventType applied to the board before a step")
+    @StackTrace(false)
+    static final class EventApplied extends Event {
+        @Label("Game Id")
+        long gameId;
+
+        @Label("Step")
+        int step;
+
+        @Label("Event Type")
+        String eventType;
+
+        @Label("Affected Cells")
+        int affectedCells;
+    }
+
+    /**
+     * Returns the identifier of a game for event payloads, 0 if unsaved.
+     *
+     * @param game the game, possibly null
+     * @return its id, or 0
+     */
+    static long idOf(Game game) {
+        return game != null && game.getId() != null ? game.getId() : 0;
+    }
+}
@@ -0,0 +1,105 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-size log-linear histogram of non-negative durations.
+ *
+ * Values below 64 get a bucket each; above, every power of two is split
+ * into 32 equal sub-buckets, so any recorded value is reproduced within
+ * about 3% while the whole long range fits in under 2000 counters. Not
+ * thread-safe: callers synchronize.
+ */
+final class LatencyHistogram {
+
+    private static final int SUB_BITS = 5;
+
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+
+    /** Values recorded exactly, one bucket each. */
+    private static final int LINEAR = 2 * SUB_BUCKETS;
+
+    private static final int BUCKETS = LINEAR + (Long.SIZE - 1 - (SUB_BITS + 1)) * SUB_BUCKETS;
+
+    private final long[] counts = new long[BUCKETS];
+
+    private long total;
+
+    private long max;
+
+    /**
+     * Records one value; negative values count as zero.
+     *
+     * @param value the duration to record
+     */
+    void record(long value) {
+        long v = Math.max(0, value);
+        counts[indexOf(v)]++;
+        total++;
+        max = Math.max(max, v);
+    }
+
+    /**
+     * Returns the number of recorded values.
+     *
+     * @return the total count
+     */
+    long total() {
+        return total;
+    }
+
+    /**
+     * Returns the nearest-rank percentile of the recorded values, within the
+     * precision of its bucket and never above the largest value recorded.
+     *
+     * @param p the percentile, between 0 and 100 inclusive
+     * @return the value at the requested percentile, 0 if nothing was recorded
+     * @throws IllegalArgumentException if p is out of range
+     */
+    long percentile(double p) {
+        if (p < 0 || p > 100) {
+            throw new IllegalArgumentException("Percentile must be within [0, 100]: " + p);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(p / 100.0 * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, highestIn(i));
+            }
+        }
+        return max;
+    }
+
+    /**
+     * Forgets every recorded value.
+     */
+    void reset() {
+        Arrays.fill(counts, 0);
+        total = 0;
+        max = 0;
+    }
+
+    private static int indexOf(long v) {
+        if (v < LINEAR) {
+            return (int) v;
+        }
+        int exponent = Long.SIZE - 1 - Long.numberOfLeadingZeros(v);
+        int mantissa = (int) (v >>> (exponent - SUB_BITS)) & (SUB_BUCKETS - 1);
+        return LINEAR + (exponent - (SUB_BITS + 1)) * SUB_BUCKETS + mantissa;
+    }
+
+    private static long highestIn(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + SUB_BITS + 1;
+        long mantissa = (index - LINEAR) % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BITS);
+        long low = (SUB_BUCKETS + mantissa) * width;
+        return low + (width - 1);
+    }
+}
@@ -1,8 +1,5 @@
 package it.polito.extgol;
 
-import jakarta.persistence.Entity;
-
-@Entity
 public class Loner extends Cell {
 
     public Loner(){
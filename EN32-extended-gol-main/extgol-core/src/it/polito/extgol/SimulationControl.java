@@ -0,0 +1,270 @@
+package it.polito.extgol;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Live view and remote control of one run(...), exposed over JMX.
+ *
+ * ExtendedGameOfLife opens a SimulationControl for every run. Once the run
+ * has lasted REGISTRATION_DELAY_MILLIS it is registered on the platform MBean
+ * server, until the run ends, so jconsole, VisualVM or any JMX client can
+ * list the simulations in progress, watch their progress and footprint, and
+ * pause, throttle or cancel a runaway one without restarting the JVM. Short
+ * runs finish before that and never initialize JMX at all, which keeps
+ * short-lived simulation jobs fast to start.
+ *
+ * The simulating thread calls awaitStep() before and stepCompleted(...)
+ * after every evolve; management operations arrive on JMX threads and are
+ * honored at the next step boundary.
+ */
+public class SimulationControl implements SimulationControlMBean, AutoCloseable {
+
+    /** JMX domain shared by all the MBeans of the project. */
+    static final String DOMAIN = "it.polito.extgol";
+
+    /**
+     * Approximate heap cost of one recorded cell state per generation: one
+     * aliveness and one energy entry in a HashMap (node plus table slot).
+     */
+    private static final long BYTES_PER_STATE = 88;
+
+    /**
+     * Approximate heap cost of the board itself per cell: the Tile, its Cell,
+     * their coordinates and the tile's neighbor set.
+     */
+    private static final long BYTES_PER_CELL = 512;
+
+    /** Smoothing factor of the steps-per-second average. */
+    private static final double ALPHA = 0.2;
+
+    /** How long a run must last before it shows up over JMX. */
+    static final long REGISTRATION_DELAY_MILLIS = 500;
+
+    private static final AtomicLong RUNS = new AtomicLong();
+
+    private final Game game;
+    private final int targetSteps;
+    private final int cells;
+    private final long startNanos = System.nanoTime();
+    private boolean registrationAttempted;
+    private volatile ObjectName name;
+
+    private volatile int step;
+    private volatile int population;
+    private volatile int historySize;
+    private volatile double stepsPerSecond;
+    private volatile double maxStepsPerSecond;
+    private volatile boolean paused;
+    private volatile boolean cancelled;
+
+    /** Simulating thread only. */
+    private long lastStepNanos = System.nanoTime();
+
+    SimulationControl(Game game, int targetSteps) {
+        this.game = game;
+        this.targetSteps = targetSteps;
+        this.cells = game.getBoard() != null ? game.getBoard().getTiles().size() : 0;
+        this.historySize = game.getGenerations().size();
+    }
+
+    /**
+     * Creates the control of a run, registered over JMX only if the run
+     * lasts long enough.
+     *
+     * @param game        the game about to run
+     * @param targetSteps the number of steps requested
+     * @return the SimulationControl, to be closed when the run ends
+     */
+    static SimulationControl open(Game game, int targetSteps) {
+        return new SimulationControl(game, targetSteps);
+    }
+
+    /**
+     * Registers this control on the platform MBean server. A failed
+     * registration (e.g. under a restrictive security policy) leaves the run
+     * unmanaged but otherwise unaffected.
+     */
+    private void register() {
+        registrationAttempted = true;
+        try {
+            ObjectName candidate = new ObjectName(DOMAIN + ":type=Simulation,game="
+                    + ObjectName.quote(String.valueOf(game.getName())) + ",run=" + RUNS.incrementAndGet());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+            name = candidate;
+        } catch (JMException | SecurityException e) {
+            // management is best-effort
+        }
+    }
+
+    /**
+     * Returns the name the control is registered under.
+     *
+     * @return the ObjectName, or null if not (yet) registered
+     */
+    public ObjectName getObjectName() {
+        return name;
+    }
+
+    /**
+     * Called before every step: blocks while paused, sleeps as needed to
+     * honor the throttle and reports whether the run may continue. An
+     * interrupted simulating thread is treated as a cancellation, with its
+     * interrupt status restored.
+     *
+     * @return false if the run was cancelled and must stop
+     */
+    boolean awaitStep() {
+        if (!paused && maxStepsPerSecond == 0) {
+            return !cancelled;
+        }
+        try {
+            synchronized (this) {
+                while (!cancelled) {
+                    if (paused) {
+                        wait();
+                        continue;
+                    }
+                    double limit = maxStepsPerSecond;
+                    long wait = limit > 0
+                            ? lastStepNanos + (long) (TimeUnit.SECONDS.toNanos(1) / limit) - System.nanoTime()
+                            : 0;
+                    if (wait <= 0) {
+                        break;
+                    }
+                    // woken early by pause, resume, throttle or cancel
+                    TimeUnit.NANOSECONDS.timedWait(this, wait);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            cancelled = true;
+        }
+        return !cancelled;
+    }
+
+    /**
+     * Called after every step with the generation just produced.
+     *
+     * @param generation the new current generation
+     */
+    void stepCompleted(Generation generation) {
+        long now = System.nanoTime();
+        double instant = TimeUnit.SECONDS.toNanos(1) / (double) Math.max(1, now - lastStepNanos);
+        stepsPerSecond = step == 0 ? instant : stepsPerSecond + ALPHA * (instant - stepsPerSecond);
+        lastStepNanos = now;
+        population = generation.getEnergyHistogram().total();
+        historySize = game.getGenerations().size();
+        step++;
+        if (!registrationAttempted
+                && now - startNanos >= TimeUnit.MILLISECONDS.toNanos(REGISTRATION_DELAY_MILLIS)) {
+            register();
+        }
+    }
+
+    /**
+     * Unregisters the MBean; the run is over.
+     */
+    @Override
+    public void close() {
+        registrationAttempted = true;
+        ObjectName name = this.name;
+        if (name != null) {
+            try {
+                MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                if (server.isRegistered(name)) {
+                    server.unregisterMBean(name);
+                }
+            } catch (JMException e) {
+                // already gone
+            }
+            this.name = null;
+        }
+    }
+
+    @Override
+    public String getGameName() {
+        return game.getName();
+    }
+
+    @Override
+    public Long getGameId() {
+        return game.getId();
+    }
+
+    @Override
+    public int getStep() {
+        return step;
+    }
+
+    @Override
+    public int getTargetSteps() {
+        return targetSteps;
+    }
+
+    @Override
+    public double getStepsPerSecond() {
+        return stepsPerSecond;
+    }
+
+    @Override
+    public int getPopulation() {
+        return population;
+    }
+
+    @Override
+    public int getHistorySize() {
+        return historySize;
+    }
+
+    @Override
+    public long getEstimatedHeapBytes() {
+        return cells * (BYTES_PER_CELL + historySize * BYTES_PER_STATE);
+    }
+
+    @Override
+    public boolean isPaused() {
+        return paused;
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    @Override
+    public double getMaxStepsPerSecond() {
+        return maxStepsPerSecond;
+    }
+
+    @Override
+    public synchronized void pause() {
+        paused = true;
+    }
+
+    @Override
+    public synchronized void resume() {
+        paused = false;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void throttle(double maxStepsPerSecond) {
+        if (maxStepsPerSecond < 0 || Double.isNaN(maxStepsPerSecond)) {
+            throw new IllegalArgumentException("Throttle must not be negative: " + maxStepsPerSecond);
+        }
+        this.maxStepsPerSecond = maxStepsPerSecond;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void cancel() {
+        cancelled = true;
+        notifyAll();
+    }
+}
@@ -0,0 +1,92 @@
+package it.polito.extgol;
+
+/**
+ * JMX management interface of a running simulation, registered by
+ * ExtendedGameOfLife for every run(...) lasting more than half a second,
+ * until it ends, under
+ * it.polito.extgol:type=Simulation,game=&lt;name&gt;,run=&lt;sequence&gt;.
+ *
+ * Attributes are snapshots refreshed after each step; operations take
+ * effect before the next step starts.
+ */
+public interface SimulationControlMBean {
+
+    /**
+     * @return the name of the simulated game
+     */
+    String getGameName();
+
+    /**
+     * @return the database id of the game, null if it was never saved
+     */
+    Long getGameId();
+
+    /**
+     * @return the number of steps completed by this run
+     */
+    int getStep();
+
+    /**
+     * @return the number of steps requested for this run
+     */
+    int getTargetSteps();
+
+    /**
+     * @return the recent evolution rate, exponentially smoothed
+     */
+    double getStepsPerSecond();
+
+    /**
+     * @return the alive cells in the latest generation
+     */
+    int getPopulation();
+
+    /**
+     * @return the generations currently retained in the game's history
+     */
+    int getHistorySize();
+
+    /**
+     * @return a rough estimate of the heap retained by the board and its
+     *         history, in bytes
+     */
+    long getEstimatedHeapBytes();
+
+    /**
+     * @return true while the run is paused
+     */
+    boolean isPaused();
+
+    /**
+     * @return true once the run has been cancelled
+     */
+    boolean isCancelled();
+
+    /**
+     * @return the throttle in steps per second, 0 if unthrottled
+     */
+    double getMaxStepsPerSecond();
+
+    /**
+     * Suspends the run before its next step.
+     */
+    void pause();
+
+    /**
+     * Resumes a paused run.
+     */
+    void resume();
+
+    /**
+     * Limits the evolution rate.
+     *
+     * @param maxStepsPerSecond the highest rate allowed, 0 to remove the limit
+     */
+    void throttle(double maxStepsPerSecond);
+
+    /**
+     * Stops the run before its next step. run(...) then returns the game
+     * with the generations computed so far.
+     */
+    void cancel();
+}
@@ -0,0 +1,82 @@
+package it.polito.extgol;
+
+/**
+ * Observer of the cost of each evolved generation.
+ *
+ * ExtendedGameOfLife.evolve(...) runs in four phases (see Phase) and, when a
+ * metrics sink is installed and enabled, reports once per generation a
+ * StepMetrics sample with the duration of every phase and the counters of
+ * Counter. The default sink NONE is disabled: evolve then skips every clock
+ * read and builds no sample, so uninstrumented simulations pay nothing.
+ *
+ * Implementations are called on the simulating thread and should return
+ * quickly; HistogramSimulationMetrics is a ready-made in-process sink.
+ */
+public interface SimulationMetrics {
+
+    /**
+     * Phases of a single evolve step, in execution order.
+     */
+    enum Phase {
+        /** Pairwise interactions between neighboring cells. */
+        INTERACTION,
+        /** Infected naive cells turning into vampires. */
+        INFECTION,
+        /** Survival rules, energy update and vampire absorption. */
+        SURVIVAL,
+        /** Applying the new states and snapshotting the next generation. */
+        COMMIT
+    }
+
+    /**
+     * Quantities counted during a single evolve step.
+     */
+    enum Counter {
+        /** Cells whose next state was computed. */
+        CELLS_EVALUATED,
+        /** Calls to Cell.interact(...) during the interaction phase. */
+        INTERACTIONS,
+        /** Dead cells alive in the next generation. */
+        BIRTHS,
+        /** Alive cells dead in the next generation. */
+        DEATHS,
+        /** Infected naive cells turned into vampires. */
+        INFECTIONS,
+        /**
+         * Bytes allocated by the simulating thread during the step, or -1
+         * where the JVM cannot measure per-thread allocation.
+         */
+        ALLOCATED_BYTES
+    }
+
+    /**
+     * Disabled sink, the default of every ExtendedGameOfLife.
+     */
+    SimulationMetrics NONE = new SimulationMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void generationEvolved(StepMetrics sample) {
+            // nothing to record
+        }
+    };
+
+    /**
+     * Tells evolve whether to measure at all. Checked once per generation.
+     *
+     * @return true if samples should be collected and reported
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * Receives the measurements of one evolved generation.
+     *
+     * @param sample the phase durations and counters of the step
+     */
+    void generationEvolved(StepMetrics sample);
+}
@@ -0,0 +1,110 @@
+package it.polito.extgol;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import it.polito.extgol.SimulationMetrics.Counter;
+import it.polito.extgol.SimulationMetrics.Phase;
+
+/**
+ * Measurements of a single evolve step, reported to SimulationMetrics.
+ *
+ * Holds the wall-clock duration of each Phase in nanoseconds and the value
+ * of each Counter. Samples are filled in by ExtendedGameOfLife and are
+ * read-only for everybody else.
+ */
+public final class StepMetrics {
+
+    /** Per-thread allocation counter, when the running JVM offers one. */
+    private static final com.sun.management.ThreadMXBean ALLOCATION = allocationBean();
+
+    private final int step;
+
+    private final long[] phaseNanos = new long[Phase.values().length];
+
+    private final long[] counters = new long[Counter.values().length];
+
+    StepMetrics(int step) {
+        this.step = step;
+    }
+
+    /**
+     * Returns the step of the generation the sample was taken from.
+     *
+     * @return the step of the evolved (source) generation
+     */
+    public int getStep() {
+        return step;
+    }
+
+    /**
+     * Returns the time spent in one phase.
+     *
+     * @param phase the Phase to look up
+     * @return its duration in nanoseconds
+     */
+    public long nanos(Phase phase) {
+        return phaseNanos[phase.ordinal()];
+    }
+
+    /**
+     * Returns the duration of the whole step, i.e. the sum of its phases.
+     *
+     * @return the step duration in nanoseconds
+     */
+    public long totalNanos() {
+        long total = 0;
+        for (long n : phaseNanos) {
+            total += n;
+        }
+        return total;
+    }
+
+    /**
+     * Returns the value of one counter.
+     *
+     * @param counter the Counter to look up
+     * @return its value for this step
+     */
+    public long count(Counter counter) {
+        return counters[counter.ordinal()];
+    }
+
+    void setNanos(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()] = nanos;
+    }
+
+    void setCount(Counter counter, long value) {
+        counters[counter.ordinal()] = value;
+    }
+
+    /**
+     * Returns the bytes allocated so far by the current thread.
+     *
+     * @return the allocated bytes, or -1 if not measurable
+     */
+    static long allocatedBytes() {
+        return ALLOCATION != null ? ALLOCATION.getCurrentThreadAllocatedBytes() : -1;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean sun
+                && sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled()) {
+            return sun;
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("StepMetrics{step=").append(step);
+        for (Phase p : Phase.values()) {
+            sb.append(", ").append(p).append('=').append(nanos(p)).append("ns");
+        }
+        for (Counter c : Counter.values()) {
+            sb.append(", ").append(c).append('=').append(count(c));
+        }
+        return sb.append('}').toString();
+    }
+}
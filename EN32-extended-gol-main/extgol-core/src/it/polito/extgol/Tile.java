@@ -3,78 +3,41 @@ package it.polito.extgol;
 import java.util.HashSet;
 import java.util.Set;
 
-import jakarta.persistence.AttributeOverride;
-import jakarta.persistence.AttributeOverrides;
-import jakarta.persistence.CascadeType;
-import jakarta.persistence.Column;
-import jakarta.persistence.Embedded;
-import jakarta.persistence.Entity;
-import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
-import jakarta.persistence.Id;
-import jakarta.persistence.JoinColumn;
-import jakarta.persistence.ManyToOne;
-import jakarta.persistence.OneToOne;
-import jakarta.persistence.Transient;
-
 /**
  * Entity representing a single square on the Game of Life board. Holds
  * coordinate position, occupying Cell, and link back to its Board.
  */
-@Entity
 public class Tile implements Interactable {
 
-    @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
 
     /**
      * Coordinates of the tile on the board.
      */
-    @Embedded
-    @AttributeOverrides({
-        @AttributeOverride(name = "x",
-                column = @Column(name = "tile_x", nullable = false)),
-        @AttributeOverride(name = "y",
-                column = @Column(name = "tile_y", nullable = false))
-    })
     private Coord tileCoord;
 
     /**
      * Reference to the board containing this tile.
      */
-    @ManyToOne(optional = false, fetch = FetchType.LAZY)
-    @JoinColumn(name = "board_id", nullable = false)
     private Board board;
 
     /**
      * Reference to the owning game.
      */
-    @ManyToOne(fetch = FetchType.LAZY, optional = false)
-    @JoinColumn(name = "game_id", nullable = false, updatable = false)
     private Game game;
 
     /** Life point modifier for the cell of this tile, defaults to 0 */
-    @Column(name = "life_point_modifier", nullable = false)
     private Integer lifePointModifier = 0;
 
     /**
      * The cell occupying this tile.
      */
-    @OneToOne(
-            cascade = CascadeType.ALL,
-            orphanRemoval = true,
-            fetch = FetchType.LAZY
-    )
-    @JoinColumn(name = "cell_id", nullable = false, unique = true)
     private Cell cell;
 
     /**
      * Neighboring tiles for interactions. Not persisted.
      */
-    @Transient
-    private Set<Tile> neighbors = new HashSet<Tile>();
+    private transient Set<Tile> neighbors = new HashSet<Tile>();
 
     /**
      * Default constructor required by JPA.
@@ -129,6 +92,11 @@ public class Tile implements Interactable {
      * @param cell the Cell to assign to this tile, or null to clear it
      */
     public void setCell(Cell cell) {
+        if (this.cell != null && this.cell != cell && this.cell.neighborTracker() != null) {
+            // the board's neighbor counts were built around the old cell
+            this.cell.neighborTracker().invalidateNeighborCounts();
+            this.cell.trackNeighborsOn(null);
+        }
         this.cell = cell;
     }
 
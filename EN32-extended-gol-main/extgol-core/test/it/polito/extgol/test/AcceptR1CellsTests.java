@@ -3,7 +3,6 @@ package it.polito.extgol.test;
 import java.util.List;
 import java.util.Map;
 
-import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -26,20 +25,12 @@ public class AcceptR1CellsTests {
     private Game game;
     private Board board;
 
-    /**
-     * Close JPA after all tests.
-     */
-    @AfterClass
-    public static void closeDB() {
-        //JPAUtil.close()
-    }
 
     /**
-     * Prepare a clean database and new game before each test.
+     * Set up a fresh game before each test.
      */
     @Before
     public void setUp() {
-        TestDatabaseUtil.clearDatabase();
         facade = new ExtendedGameOfLife();
         game  = Game.createExtended("TestGame", 3, 3);
         board = game.getBoard();
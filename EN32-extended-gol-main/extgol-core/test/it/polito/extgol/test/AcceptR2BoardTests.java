@@ -4,7 +4,6 @@ import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 
-import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
@@ -16,7 +15,6 @@ import it.polito.extgol.Coord;
 import it.polito.extgol.ExtendedGameOfLife;
 import it.polito.extgol.Game;
 import it.polito.extgol.Generation;
-import it.polito.extgol.JPAUtil;
 
 import static it.polito.extgol.test.TestBranchUtils.assumeBranch;
 
@@ -25,20 +23,12 @@ public class AcceptR2BoardTests {
     private Game game;
     private Board board;
 
-    /**
-     * Close JPA after all tests.
-     */
-    @AfterClass
-    public static void closeDB() {
-        JPAUtil.close();
-    }
 
     /**
-     * Prepare a clean database and new game before each test.
+     * Set up a fresh game before each test.
      */
     @Before
     public void setUp() {
-        TestDatabaseUtil.clearDatabase();
         facade = new ExtendedGameOfLife();
         game  = Game.createExtended("TestGame", 6, 6);
         board = game.getBoard();
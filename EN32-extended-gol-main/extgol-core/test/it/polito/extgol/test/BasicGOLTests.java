@@ -1,10 +1,14 @@
 package it.polito.extgol.test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 
-import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThrows;
@@ -13,12 +17,15 @@ import org.junit.Before;
 import org.junit.Test;
 
 import it.polito.extgol.Board;
+import it.polito.extgol.BoardRenderer;
 import it.polito.extgol.Cell;
 import it.polito.extgol.Coord;
 import it.polito.extgol.ExtendedGameOfLife;
 import it.polito.extgol.Game;
 import it.polito.extgol.Generation;
-import it.polito.extgol.JPAUtil;
+import it.polito.extgol.HistogramSimulationMetrics;
+import it.polito.extgol.SimulationMetrics.Counter;
+import it.polito.extgol.SimulationMetrics.Phase;
 /**
  * JUnit test suite for the basic GOL
  * 
@@ -30,23 +37,15 @@ public class BasicGOLTests {
     private Board board;
 
     /**
-     * Set up a fresh database and game before each test.
+     * Set up a fresh game before each test.
      */
     @Before
     public void setUp() {
-        TestDatabaseUtil.clearDatabase();
         facade = new ExtendedGameOfLife();
         game  = Game.create("TestGame", 3, 3);
         board = game.getBoard();
     }
      
-    /**
-     * Close JPA resources after all tests.
-     */
-    @AfterClass
-    public static void closeDB(){
-        JPAUtil.close();
-    }
 
     @Test
     public void testRunZeroSteps() {
@@ -176,6 +175,60 @@ public class BasicGOLTests {
         assertEquals(expected, viz);
     }
     
+    @Test
+    public void testRenderViewport() throws IOException {
+        List<Coord> coords = List.of(
+            new Coord(1, 1),
+            new Coord(1, 2),
+            new Coord(2, 1),
+            new Coord(2, 2)
+        );
+        Generation start = Generation.createInitial(game, board, coords);
+        BoardRenderer renderer = new BoardRenderer();
+        String expected = String.join(System.lineSeparator(),
+            "0CC0",
+            "0CC0",
+            "0000"
+        );
+
+        StringWriter text = new StringWriter();
+        renderer.render(start, 0, 1, 4, 3, text);
+        assertEquals("Viewport rows past the board edge should render as dead", expected, text.toString());
+
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        renderer.render(start, 0, 1, 4, 3, Channels.newChannel(raw));
+        assertEquals(expected, raw.toString(StandardCharsets.US_ASCII));
+
+        StringBuilder full = new StringBuilder();
+        renderer.render(start, full);
+        assertEquals(board.visualize(start), full.toString());
+    }
+
+    @Test
+    public void testSimulationMetrics() {
+        // Blinker: every step two cells die and two are born
+        Generation.createInitial(game, board,
+            List.of(new Coord(0, 1), new Coord(1, 1), new Coord(2, 1)));
+        HistogramSimulationMetrics metrics = new HistogramSimulationMetrics();
+        facade.setSimulationMetrics(metrics);
+
+        facade.run(game, 4);
+
+        assertEquals(4, metrics.getSteps());
+        assertEquals(4 * 9, metrics.total(Counter.CELLS_EVALUATED));
+        assertEquals(8, metrics.total(Counter.BIRTHS));
+        assertEquals(8, metrics.total(Counter.DEATHS));
+        assertEquals(0, metrics.total(Counter.INFECTIONS));
+        assertTrue(metrics.total(Counter.INTERACTIONS) > 0);
+        assertTrue(metrics.getP50() > 0);
+        assertTrue(metrics.getP50() <= metrics.getP99());
+        assertTrue(metrics.phasePercentile(Phase.COMMIT, 100) <= metrics.stepPercentile(100));
+
+        facade.setSimulationMetrics(null);
+        facade.run(game, 1);
+        assertEquals("Removed sink should not be notified", 4, metrics.getSteps());
+    }
+
     @Test
     public void testGliderMovesCorrectlyOn10x10() {
         // Setup a 10x10 game
@@ -4,7 +4,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
-import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
@@ -25,20 +24,12 @@ public class ExtGOLR1CellsTests {
     private Game game;
     private Board board;
 
-    /**
-     * Close JPA after all tests.
-     */
-    @AfterClass
-    public static void closeDB() {
-        //JPAUtil.close()
-    }
 
     /**
-     * Prepare a clean database and new game before each test.
+     * Set up a fresh game before each test.
      */
     @Before
     public void setUp() {
-        TestDatabaseUtil.clearDatabase();
         facade = new ExtendedGameOfLife();
         game  = Game.createExtended("TestGame", 3, 3);
         board = game.getBoard();
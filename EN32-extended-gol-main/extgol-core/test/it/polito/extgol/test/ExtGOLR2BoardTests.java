@@ -1,25 +1,36 @@
 package it.polito.extgol.test;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.IntSummaryStatistics;
 import java.util.List;
 import java.util.Map;
 
-import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertThrows;
 import static org.junit.Assert.assertTrue;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import it.polito.extgol.Board;
 import it.polito.extgol.Cell;
+import it.polito.extgol.CellType;
 import it.polito.extgol.Coord;
 import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.FrameExporter;
 import it.polito.extgol.Game;
 import it.polito.extgol.Generation;
 import it.polito.extgol.Interactable;
-import it.polito.extgol.JPAUtil;
 import it.polito.extgol.Tile;
 import static it.polito.extgol.test.TestBranchUtils.assumeBranch;
 
@@ -28,20 +39,14 @@ public class ExtGOLR2BoardTests {
     private Game game;
     private Board board;
 
-    /**
-     * Close JPA after all tests.
-     */
-    @AfterClass
-    public static void closeDB() {
-        JPAUtil.close();
-    }
+    @Rule
+    public TemporaryFolder frames = new TemporaryFolder();
 
     /**
-     * Prepare a clean database and new game before each test.
+     * Set up a fresh game before each test.
      */
     @Before
     public void setUp() {
-        TestDatabaseUtil.clearDatabase();
         facade = new ExtendedGameOfLife();
         game  = Game.createExtended("TestGame", 6, 6);
         board = game.getBoard();
@@ -254,6 +259,35 @@ public class ExtGOLR2BoardTests {
         assertEquals("topEnergyCells should return cell at 2, 1",new Coord(2,1), top1.get(0).getCoordinates());
     }
 
+    @Test
+    public void testR2TopEnergyCellsRepeatedQueries() {
+        assumeBranch("R2");
+        Generation.createInitial(game, board, List.of(
+            new Coord(1, 1),
+            new Coord(2, 1),
+            new Coord(1, 2),
+            new Coord(2, 2)));
+        Board.setInteractableTile(game.getBoard(), new Coord(2,2), +3);
+        Board.setInteractableTile(game.getBoard(), new Coord(1,2), +1);
+        Board.setInteractableTile(game.getBoard(), new Coord(2,1), +1);
+
+        Game result = facade.run(game,1);
+        Generation next = result.getGenerations().get(1);
+        List<Coord> expected = List.of(new Coord(2,2), new Coord(2,1), new Coord(1,2), new Coord(1,1));
+
+        // first query goes through the bounded heap, later ones through the index
+        for (int i = 0; i < 3; i++) {
+            List<Cell> top = board.topEnergyCells(next, 3);
+            assertEquals("topEnergyCells should return 3 cells", 3, top.size());
+            for (int j = 0; j < top.size(); j++) {
+                assertEquals("Unexpected cell at rank " + j, expected.get(j), top.get(j).getCoordinates());
+            }
+        }
+        assertEquals("Asking for more cells than alive should return all of them",
+            4, board.topEnergyCells(next, 10).size());
+        assertEquals(new Coord(2,2), board.getHighestEnergyCell(next).getCoordinates());
+    }
+
     @Test
     public void testR2GroupByNeighborCount() {
         assumeBranch("R2");
@@ -290,6 +324,44 @@ public class ExtGOLR2BoardTests {
 
     }
 
+    @Test
+    public void testR2NeighborCountsFollowBirthsAndDeaths() {
+        assumeBranch("R2");
+        Game glider = Game.createExtended("gliderGame", 10, 10);
+        Board gliderBoard = glider.getBoard();
+        Generation.createInitial(glider, gliderBoard, List.of(
+            new Coord(1, 0),
+            new Coord(2, 1),
+            new Coord(0, 2),
+            new Coord(1, 2),
+            new Coord(2, 2)));
+
+        facade.run(glider, 8);
+        assertNeighborCountsMatch(gliderBoard);
+
+        // manual births and deaths outside evolve must be tracked too
+        gliderBoard.getTile(new Coord(5, 5)).getCell().setAlive(true);
+        gliderBoard.getTile(new Coord(3, 3)).getCell().setAlive(false);
+        assertNeighborCountsMatch(gliderBoard);
+
+        // replacing a cell on a tile must not leave stale counts behind
+        Generation last = glider.getGenerations().get(8);
+        last.setType(List.of(new Coord(5, 5)), CellType.LONER);
+        assertNeighborCountsMatch(gliderBoard);
+    }
+
+    private static void assertNeighborCountsMatch(Board b) {
+        for (Tile t : b.getTiles()) {
+            int expected = 0;
+            for (Tile n : t.getNeighbors()) {
+                if (n.getCell().isAlive()) {
+                    expected++;
+                }
+            }
+            assertEquals("Wrong neighbor count at " + t.getCell(), expected, b.countAliveNeighbors(t.getCell()));
+        }
+    }
+
     @Test
     public void testR2EnergyStatistics() {
         assumeBranch("R2");
@@ -323,6 +395,35 @@ public class ExtGOLR2BoardTests {
     
     }
 
+    @Test
+    public void testR2EnergyHistogramPercentiles() {
+        assumeBranch("R2");
+        Generation.createInitial(game, board, List.of(
+            new Coord(0, 0),
+            new Coord(0, 1),
+            new Coord(1, 0),
+            new Coord(1, 1)));
+
+        Board.setInteractableTile(game.getBoard(), new Coord(0, 0), +1);
+        Board.setInteractableTile(game.getBoard(), new Coord(1, 0), +2);
+        // well outside the dense range of the histogram
+        Board.setInteractableTile(game.getBoard(), new Coord(1, 1), +300);
+
+        Game result = facade.run(game,1);
+        Generation next = result.getGenerations().get(1);
+
+        assertEquals("Median energy should be 2", 2, board.energyPercentile(next, 50));
+        assertEquals("p90 energy should be 301", 301, board.energyPercentile(next, 90));
+        assertEquals("p0 energy should be 1", 1, board.energyPercentile(next, 0));
+        assertEquals(1, board.countCellsAtEnergyLevel(next, 301));
+        assertEquals(0, board.countCellsAtEnergyLevel(next, 5));
+        assertEquals(List.of(next.getBoard().getTile(new Coord(1, 1)).getCell()),
+            board.getCellsAtEnergyLevel(next, 301));
+        assertTrue(board.getCellsAtEnergyLevel(next, 5).isEmpty());
+        assertEquals("Four distinct energy levels expected", 4, board.getCellsByEnergyLevel(next).size());
+        assertEquals(307, next.getEnergyHistogram().toStatistics().getSum());
+    }
+
     @Test
     public void testR2TimeSeriesStats() {
         assumeBranch("R2");
@@ -351,4 +452,83 @@ public class ExtGOLR2BoardTests {
         assertEquals("Minimum energy should be 2", 2, last.getMin());
         assertEquals("Maximum energy should be 12", 12, last.getMax());        
     }
+
+    @Test
+    public void testR1R2FrameExport() throws IOException {
+        assumeBranch("r1", "r2");
+        Game game = Game.createExtended("TestGame", 5, 4);
+        Generation.createInitial(game, game.getBoard(), List.of(new Coord(1, 1), new Coord(2, 1), new Coord(3, 1)));
+        Path dir = frames.getRoot().toPath();
+
+        try (FrameExporter pbm = FrameExporter.pbm(dir.resolve("pbm"), 2, 1);
+             FrameExporter ppm = FrameExporter.ppm(dir.resolve("ppm"), FrameExporter.ColorMode.TYPE, 1, 2)) {
+            facade.addGenerationListener(pbm);
+            facade.addGenerationListener(ppm);
+            facade.run(game, 2);
+        }
+
+        // stride 2: only the second generation, the blinker back to horizontal
+        assertFalse(Files.exists(dir.resolve("pbm/frame-000001.pbm")));
+        byte[] bitmap = Files.readAllBytes(dir.resolve("pbm/frame-000002.pbm"));
+        byte[] header = "P4\n5 4\n".getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(header, Arrays.copyOf(bitmap, header.length));
+        assertArrayEquals(new byte[] {0, 0x70, 0, 0}, Arrays.copyOfRange(bitmap, header.length, bitmap.length));
+
+        // 5x4 board downscaled by 2 gives a 3x2 pixmap
+        byte[] pixmap = Files.readAllBytes(dir.resolve("ppm/frame-000001.ppm"));
+        byte[] pixHeader = "P6\n3 2\n255\n".getBytes(StandardCharsets.US_ASCII);
+        assertArrayEquals(pixHeader, Arrays.copyOf(pixmap, pixHeader.length));
+        assertEquals(pixHeader.length + 3 * 2 * 3, pixmap.length);
+    }
+
+    @Test
+    public void testR1R2FrameStreamExport() throws IOException {
+        assumeBranch("r1", "r2");
+        Game game = Game.createExtended("TestGame", 5, 4);
+        Generation.createInitial(game, game.getBoard(), List.of(new Coord(1, 1), new Coord(2, 1), new Coord(3, 1)));
+        Path file = frames.getRoot().toPath().resolve("run/frames.pbm");
+
+        try (FrameExporter pbm = FrameExporter.pbmStream(file, 1, 1)) {
+            facade.addGenerationListener(pbm);
+            facade.run(game, 2);
+        }
+
+        // both evolved generations, back to back in one file
+        byte[] header = "P4\n5 4\n".getBytes(StandardCharsets.US_ASCII);
+        byte[] vertical = {0x20, 0x20, 0x20, 0};
+        byte[] horizontal = {0, 0x70, 0, 0};
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        expected.write(header);
+        expected.write(vertical);
+        expected.write(header);
+        expected.write(horizontal);
+        assertArrayEquals(expected.toByteArray(), Files.readAllBytes(file));
+    }
+
+    @Test(timeout = 10_000)
+    public void testR1R2FrameExportReportsWriterErrors() throws IOException {
+        assumeBranch("r1", "r2");
+        Game game = Game.createExtended("TestGame", 5, 4);
+        Generation.createInitial(game, game.getBoard(), List.of(new Coord(1, 1), new Coord(2, 1), new Coord(3, 1)));
+        Path dir = frames.getRoot().toPath();
+        // a directory in place of the first frame makes its write fail
+        Files.createDirectories(dir.resolve("frame-000001.pbm"));
+
+        FrameExporter pbm = FrameExporter.pbm(dir, 1, 1);
+        facade.addGenerationListener(pbm);
+        assertThrows(UncheckedIOException.class, () -> facade.run(game, 20));
+        assertThrows(IOException.class, pbm::close);
+
+        // a writer stopped by anything else must not leave the simulation waiting
+        FrameExporter stopped = FrameExporter.pbm(dir.resolve("stopped"), 1, 1);
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().equals("extgol-frame-writer")) {
+                t.interrupt();
+            }
+        }
+        ExtendedGameOfLife other = new ExtendedGameOfLife();
+        other.addGenerationListener(stopped);
+        assertThrows(RuntimeException.class, () -> other.run(game, 20));
+        assertThrows(IOException.class, stopped::close);
+    }
 }
@@ -0,0 +1,43 @@
+package it.polito.extgol;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a batch repository operation such as
+ * GenericExtGOLRepository.createAll(...): how many entities were written and
+ * how long each flushed chunk took.
+ *
+ * @param entities   the number of entities written
+ * @param batchNanos the duration of each chunk, from its first write to its
+ *                   flush, in nanoseconds; the last element also covers the
+ *                   commit
+ */
+public record BatchResult(int entities, long[] batchNanos) {
+
+    /**
+     * @return the number of chunks flushed
+     */
+    public int batches() {
+        return batchNanos.length;
+    }
+
+    /**
+     * @return the duration of the whole operation, in nanoseconds
+     */
+    public long totalNanos() {
+        return Arrays.stream(batchNanos).sum();
+    }
+
+    /**
+     * @return the duration of the slowest chunk, in nanoseconds
+     */
+    public long maxBatchNanos() {
+        return Arrays.stream(batchNanos).max().orElse(0);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d entities in %d batches, %.1f ms (slowest batch %.1f ms)",
+                entities, batches(), totalNanos() / 1e6, maxBatchNanos() / 1e6);
+    }
+}
@@ -0,0 +1,79 @@
+package it.polito.extgol;
+
+import java.util.Map;
+
+/**
+ * A rectangle of a stored board, loaded by GameRepository.loadRegion(...):
+ * the tiles and cells inside it, and their state at one generation step.
+ *
+ * Tiles are detached and hold their cell, but not their board, which is
+ * never loaded; neighbors are not linked. The state arrays are row-major over
+ * the rectangle, positions outside the board being dead with 0 life points.
+ *
+ * @param x          the leftmost column of the rectangle
+ * @param y          the topmost row of the rectangle
+ * @param width      the number of columns
+ * @param height     the number of rows
+ * @param step       the generation step of the state
+ * @param tiles      the tiles inside the rectangle, by coordinate
+ * @param alive      whether each cell was alive at step
+ * @param lifePoints the life points of each cell at step
+ */
+public record BoardRegion(int x, int y, int width, int height, int step,
+        Map<Coord, Tile> tiles, boolean[] alive, int[] lifePoints) {
+
+    /**
+     * @param c a board coordinate
+     * @return true if c lies inside the rectangle
+     */
+    public boolean contains(Coord c) {
+        return c.getX() >= x && c.getX() < x + width && c.getY() >= y && c.getY() < y + height;
+    }
+
+    /**
+     * @param c a board coordinate inside the rectangle
+     * @return the tile at c, or null if c is outside the board
+     */
+    public Tile getTile(Coord c) {
+        return tiles.get(c);
+    }
+
+    /**
+     * @param c a board coordinate inside the rectangle
+     * @return whether the cell at c was alive at step
+     */
+    public boolean isAlive(Coord c) {
+        return alive[indexOf(c)];
+    }
+
+    /**
+     * @param c a board coordinate inside the rectangle
+     * @return the life points of the cell at c at step
+     */
+    public int getLifePoints(Coord c) {
+        return lifePoints[indexOf(c)];
+    }
+
+    /**
+     * @return the number of alive cells in the rectangle at step
+     */
+    public int countAlive() {
+        int n = 0;
+        for (boolean a : alive) {
+            if (a) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns the position of c in the state arrays.
+     */
+    int indexOf(Coord c) {
+        if (!contains(c)) {
+            throw new IndexOutOfBoundsException("(" + c.getX() + ", " + c.getY() + ") is outside the region");
+        }
+        return (c.getY() - y) * width + (c.getX() - x);
+    }
+}
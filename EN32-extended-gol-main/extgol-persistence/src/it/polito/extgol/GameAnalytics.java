@@ -0,0 +1,194 @@
+package it.polito.extgol;
+
+import java.util.IntSummaryStatistics;
+import java.util.List;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Aggregate queries over the stored history of a game.
+ *
+ * The per-generation questions that Board answers for a loaded game, such
+ * as countCells(...), energyStatistics(...) or countCellsByType(...), are
+ * computed here by the database over generation_state, generation_energy
+ * and the Cell table, with GROUP BY and window functions. A whole time series
+ * costs one query and no entity is loaded, however many generations the game
+ * has. Results are primitive arrays indexed by generation step, steps without
+ * any alive cell holding 0; an unknown game gives empty arrays.
+ *
+ * Queries join the unit of work of the calling thread, if any, and then see
+ * its flushed changes.
+ */
+public class GameAnalytics {
+
+    /**
+     * Statistics of the lifePoints of alive cells, per generation step.
+     *
+     * @param count the number of alive cells
+     * @param sum   the sum of their lifePoints
+     * @param min   the lowest lifePoints, 0 if no cell is alive
+     * @param max   the highest lifePoints, 0 if no cell is alive
+     */
+    public record EnergySeries(int[] count, long[] sum, int[] min, int[] max) {
+
+        /**
+         * @return the number of steps in the series
+         */
+        public int steps() {
+            return count.length;
+        }
+
+        /**
+         * @param step the generation step
+         * @return the average lifePoints of alive cells, 0 if none is alive
+         */
+        public double average(int step) {
+            return count[step] > 0 ? (double) sum[step] / count[step] : 0;
+        }
+
+        /**
+         * Returns the statistics of one step in the form of
+         * Board.energyStatistics(...).
+         *
+         * @param step the generation step
+         * @return the IntSummaryStatistics of that step
+         */
+        public IntSummaryStatistics statistics(int step) {
+            return count[step] > 0
+                    ? new IntSummaryStatistics(count[step], min[step], max[step], sum[step])
+                    : new IntSummaryStatistics();
+        }
+    }
+
+    /**
+     * Cells turning alive and dead from one step to the next; step 0 has
+     * neither.
+     *
+     * @param births the cells alive at a step and dead at the previous one
+     * @param deaths the cells dead at a step and alive at the previous one
+     */
+    public record Turnover(int[] births, int[] deaths) {}
+
+    /**
+     * Counts the alive cells of each generation, like Board.countCells(...)
+     * over every step.
+     *
+     * @param gameId the identifier of the game
+     * @return the alive cells per step
+     */
+    public int[] populationByStep(Long gameId) {
+        List<Object[]> rows = JPAUtil.withEntityManager(false, em -> rows(em,
+                "SELECT g.step, COUNT(s.cell_id)"
+                + " FROM generation g"
+                + " LEFT JOIN generation_state s ON s.generation_id = g.id AND s.is_alive"
+                + " WHERE g.game_id = :game"
+                + " GROUP BY g.step ORDER BY g.step", gameId));
+        int[] alive = new int[stepCount(rows)];
+        for (Object[] row : rows) {
+            alive[intOf(row[0])] = intOf(row[1]);
+        }
+        return alive;
+    }
+
+    /**
+     * Summarizes the lifePoints of alive cells in each generation, like
+     * Board.getTimeSeriesStats(...) over every step.
+     *
+     * @param gameId the identifier of the game
+     * @return the energy statistics per step
+     */
+    public EnergySeries energyByStep(Long gameId) {
+        List<Object[]> rows = JPAUtil.withEntityManager(false, em -> rows(em,
+                "SELECT g.step, COUNT(e.life_points), SUM(e.life_points),"
+                + " MIN(e.life_points), MAX(e.life_points)"
+                + " FROM generation g"
+                + " LEFT JOIN generation_state s ON s.generation_id = g.id AND s.is_alive"
+                + " LEFT JOIN generation_energy e"
+                + " ON e.generation_id = s.generation_id AND e.cell_id = s.cell_id"
+                + " WHERE g.game_id = :game"
+                + " GROUP BY g.step ORDER BY g.step", gameId));
+        int steps = stepCount(rows);
+        EnergySeries series = new EnergySeries(new int[steps], new long[steps], new int[steps], new int[steps]);
+        for (Object[] row : rows) {
+            int step = intOf(row[0]);
+            series.count()[step] = intOf(row[1]);
+            if (row[2] != null) {
+                series.sum()[step] = ((Number) row[2]).longValue();
+                series.min()[step] = intOf(row[3]);
+                series.max()[step] = intOf(row[4]);
+            }
+        }
+        return series;
+    }
+
+    /**
+     * Counts the alive cells per CellType at one step, like
+     * Board.countCellsByType(...).
+     *
+     * @param gameId the identifier of the game
+     * @param step   the generation step
+     * @return the alive cells indexed by CellType.ordinal()
+     */
+    public int[] countByTypeAtStep(Long gameId, int step) {
+        List<Object[]> rows = JPAUtil.withEntityManager(false, em -> em.createQuery(
+                "SELECT KEY(s).type, COUNT(*)"
+                + " FROM Generation g JOIN g.cellAlivenessStates s"
+                + " WHERE g.game.id = :game AND g.step = :step AND VALUE(s) = true"
+                + " GROUP BY KEY(s).type", Object[].class)
+                .setParameter("game", gameId)
+                .setParameter("step", step)
+                .getResultList());
+        int[] counts = new int[CellType.values().length];
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                counts[((CellType) row[0]).ordinal()] = intOf(row[1]);
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Counts births and deaths per step, comparing each cell with its own
+     * state at the previous step through LAG over the cell's history.
+     *
+     * @param gameId the identifier of the game
+     * @return the births and deaths per step
+     */
+    public Turnover turnoverByStep(Long gameId) {
+        List<Object[]> rows = JPAUtil.withEntityManager(false, em -> rows(em,
+                "SELECT step,"
+                + " SUM(CASE WHEN is_alive AND NOT was_alive THEN 1 ELSE 0 END),"
+                + " SUM(CASE WHEN was_alive AND NOT is_alive THEN 1 ELSE 0 END)"
+                + " FROM (SELECT g.step, s.is_alive,"
+                + "   LAG(s.is_alive) OVER (PARTITION BY s.cell_id ORDER BY g.step) AS was_alive"
+                + "   FROM generation g JOIN generation_state s ON s.generation_id = g.id"
+                + "   WHERE g.game_id = :game) h"
+                + " GROUP BY step ORDER BY step", gameId));
+        int steps = stepCount(rows);
+        Turnover turnover = new Turnover(new int[steps], new int[steps]);
+        for (Object[] row : rows) {
+            int step = intOf(row[0]);
+            turnover.births()[step] = intOf(row[1]);
+            turnover.deaths()[step] = intOf(row[2]);
+        }
+        return turnover;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Object[]> rows(EntityManager em, String sql, Long gameId) {
+        return em.createNativeQuery(sql)
+                .setParameter("game", gameId)
+                .getResultList();
+    }
+
+    /**
+     * Sizes a series after its last row, rows being ordered by step.
+     */
+    private static int stepCount(List<Object[]> rows) {
+        return rows.isEmpty() ? 0 : intOf(rows.get(rows.size() - 1)[0]) + 1;
+    }
+
+    private static int intOf(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+}
@@ -0,0 +1,760 @@
+package it.polito.extgol;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.BeforeExecutionGenerator;
+import org.hibernate.generator.EventType;
+import org.hibernate.metamodel.MappingMetamodel;
+import org.hibernate.metamodel.mapping.EntityMappingType;
+import org.hibernate.metamodel.mapping.ForeignKeyDescriptor;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.ModelPartContainer;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.metamodel.mapping.SelectableMapping;
+import org.hibernate.metamodel.mapping.internal.ToOneAttributeMapping;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Exports a stored game to a binary archive and imports it back, into the
+ * same database or another one.
+ *
+ * Both directions go through a StatelessSession and move table rows rather
+ * than entities: the game and its board, the scheduled events, the cells,
+ * the tiles, the generations and the generation_state and generation_energy
+ * rows of each generation. Nothing is kept in a persistence context, so the
+ * memory used does not depend on the length of the history: rows are read
+ * with forward-only cursors and written in JDBC batches, a chunk at a time.
+ * Table and column names are taken from the mapping metamodel, never from
+ * the schema, so the SQL follows orm.xml.
+ *
+ * Rows do not carry their identifiers: cells and generations are archived
+ * in identifier order, and tiles and state rows refer to them by position in
+ * their section. Both sides translate between positions and identifiers
+ * through runs of consecutive identifiers, which is how the pooled
+ * sequences hand them out, so the translation takes a few bytes per block
+ * of allocation-size identifiers rather than per row.
+ *
+ * The archive is a sequence of sections in the order above, each made of
+ * chunks: a row count followed by that many rows, a count of 0 closing the
+ * section. Rows hold the column values in binary form; the game and board
+ * foreign keys, the same for every row of an archive, are left out.
+ * The streams can be wrapped in GZIPOutputStream and GZIPInputStream to
+ * compress the archive.
+ *
+ * Identifiers are not preserved: imported rows get new ones from the
+ * sequences of the target database, so an archive can be imported next to
+ * the game it was exported from, under another name since names are unique.
+ *
+ * Neither direction joins the unit of work of the calling thread: an export
+ * sees committed data only, and an import commits on its own.
+ */
+public class GameArchive {
+
+    private static final int MAGIC = 0x45474F4C; // "EGOL"
+    private static final int VERSION = 1;
+
+    /** Default number of rows per chunk and per JDBC batch. */
+    public static final int DEFAULT_CHUNK_SIZE = 1000;
+
+    /**
+     * How a column is archived. KEY columns hold the identifier of the row,
+     * which is not archived and is replaced on import. GAME and BOARD
+     * columns are not archived either. CELL and GENERATION columns are
+     * archived as the position of the referenced row in its section.
+     */
+    private enum Kind { KEY, GAME, BOARD, CELL, GENERATION, INT, OPT_INT, BOOL, OPT_BOOL, OPT_SMALL, TEXT }
+
+    /**
+     * One table of the archive.
+     *
+     * @param table   the table name
+     * @param entity  the entity whose generator provides new keys, if any
+     * @param key     what the KEY column identifies: BOARD, GAME, CELL or
+     *                GENERATION, null for a collection table
+     * @param columns the column names
+     * @param kinds   how each column is archived
+     * @param filter  the condition selecting the rows of one game, or of one
+     *                generation for the state tables
+     * @param order   the ORDER BY clause, if any
+     */
+    private record Section(String table, Class<?> entity, Kind key, String[] columns, Kind[] kinds,
+            String filter, String order) {
+
+        String select() {
+            StringJoiner selected = new StringJoiner(", ");
+            for (int i = 0; i < columns.length; i++) {
+                if (kinds[i] != Kind.GAME && kinds[i] != Kind.BOARD) {
+                    selected.add(columns[i]);
+                }
+            }
+            return "SELECT " + selected + " FROM " + table + " WHERE " + filter + order;
+        }
+
+        String insert() {
+            return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                    + "?, ".repeat(columns.length - 1) + "?)";
+        }
+    }
+
+    /**
+     * The sections of an archive, in archive order, named after the mapping
+     * of the factory in use.
+     */
+    private record Layout(List<Section> gameSections, List<Section> stateSections) {}
+
+    /**
+     * Resolves the sections from the mapping metamodel. Each archived column
+     * is named by the attribute mapping it, so the archive format only
+     * depends on the attributes: renaming a table or a column in orm.xml
+     * changes the SQL, not the archive, while mapping an attribute the
+     * archive does not carry fails here rather than importing incomplete
+     * rows.
+     */
+    private static Layout layout(MappingMetamodel metamodel) {
+        EntityPersister board = metamodel.getEntityDescriptor(Board.class);
+        EntityPersister game = metamodel.getEntityDescriptor(Game.class);
+        EntityPersister cell = metamodel.getEntityDescriptor(Cell.class);
+        EntityPersister tile = metamodel.getEntityDescriptor(Tile.class);
+        EntityPersister generation = metamodel.getEntityDescriptor(Generation.class);
+
+        Columns games = new Columns()
+                .add(game.getIdentifierMapping(), Kind.KEY)
+                .add(part(game, "name"), Kind.TEXT)
+                .add(part(game, "board"), Kind.BOARD);
+        Columns boards = new Columns()
+                .add(board.getIdentifierMapping(), Kind.KEY)
+                .add(part(board, "width"), Kind.INT)
+                .add(part(board, "height"), Kind.INT);
+        PluralAttributeMapping schedule = collection(metamodel, Game.class, "eventSchedule");
+        Columns events = new Columns()
+                .addKey(schedule, Map.of(column(game.getIdentifierMapping()), Kind.GAME))
+                .add(schedule.getIndexDescriptor(), Kind.INT)
+                .add(schedule.getElementDescriptor(), Kind.OPT_SMALL);
+        Columns cells = new Columns()
+                .add(cell.getIdentifierMapping(), Kind.KEY)
+                .add(cell.getDiscriminatorMapping(), Kind.TEXT)
+                .add(part(cell, "cellCoord.x"), Kind.INT)
+                .add(part(cell, "cellCoord.y"), Kind.INT)
+                .add(part(cell, "isAlive"), Kind.BOOL)
+                .add(part(cell, "lifepoints"), Kind.INT)
+                .add(part(cell, "isInfected"), Kind.OPT_BOOL)
+                .add(part(cell, "mood"), Kind.OPT_SMALL)
+                .add(part(cell, "type"), Kind.OPT_SMALL)
+                .add(part(metamodel.getEntityDescriptor(Highlander.class), "countGenerations"), Kind.OPT_INT)
+                .add(part(cell, "board"), Kind.BOARD)
+                .add(part(cell, "game"), Kind.GAME);
+        Columns tiles = new Columns()
+                .add(tile.getIdentifierMapping(), Kind.KEY)
+                .add(part(tile, "tileCoord.x"), Kind.INT)
+                .add(part(tile, "tileCoord.y"), Kind.INT)
+                .add(part(tile, "lifePointModifier"), Kind.INT)
+                .add(part(tile, "cell"), Kind.CELL)
+                .add(part(tile, "board"), Kind.BOARD)
+                .add(part(tile, "game"), Kind.GAME);
+        Columns generations = new Columns()
+                .add(generation.getIdentifierMapping(), Kind.KEY)
+                .add(part(generation, "step"), Kind.INT)
+                .add(collection(metamodel, Game.class, "generations").getIndexDescriptor(), Kind.OPT_INT)
+                .add(part(generation, "board"), Kind.BOARD)
+                .add(part(generation, "game"), Kind.GAME);
+        // the state tables repeat the game and board of their generation
+        Map<String, Kind> owner = Map.of(
+                column(generation.getIdentifierMapping()), Kind.GENERATION,
+                column(part(generation, "game")), Kind.GAME,
+                column(part(generation, "board")), Kind.BOARD);
+        PluralAttributeMapping aliveness = collection(metamodel, Generation.class, "cellAlivenessStates");
+        Columns states = new Columns()
+                .addKey(aliveness, owner)
+                .add(aliveness.getIndexDescriptor(), Kind.CELL)
+                .add(aliveness.getElementDescriptor(), Kind.BOOL);
+        PluralAttributeMapping energy = collection(metamodel, Generation.class, "cellEnergyStates");
+        Columns energies = new Columns()
+                .addKey(energy, owner)
+                .add(energy.getIndexDescriptor(), Kind.CELL)
+                .add(energy.getElementDescriptor(), Kind.INT);
+
+        return new Layout(List.of(
+                boards.section(board, Kind.BOARD, boards.of(Kind.KEY) + " = (SELECT " + games.of(Kind.BOARD)
+                        + " FROM " + games.table + " WHERE " + games.of(Kind.KEY) + " = :game)", ""),
+                games.section(game, Kind.GAME, games.of(Kind.KEY) + " = :game", ""),
+                events.section(null, null, events.of(Kind.GAME) + " = :game", ""),
+                cells.section(cell, Kind.CELL, cells.of(Kind.GAME) + " = :game", " ORDER BY " + cells.of(Kind.KEY)),
+                tiles.section(tile, null, tiles.of(Kind.GAME) + " = :game", ""),
+                generations.section(generation, Kind.GENERATION, generations.of(Kind.GAME) + " = :game",
+                        " ORDER BY " + generations.of(Kind.KEY))),
+                List.of(
+                states.section(null, null, states.of(Kind.GENERATION) + " = :generation", ""),
+                energies.section(null, null, energies.of(Kind.GENERATION) + " = :generation", "")));
+    }
+
+    /**
+     * Finds a mapped attribute by name, or by a dotted path into embeddables.
+     */
+    private static ModelPart part(EntityMappingType entity, String path) {
+        ModelPart part = entity;
+        for (String name : path.split("\\.")) {
+            part = ((ModelPartContainer) part).findSubPart(name, null);
+            if (part == null) {
+                throw new IllegalStateException("No attribute " + path + " mapped for " + entity.getEntityName());
+            }
+        }
+        return part;
+    }
+
+    private static PluralAttributeMapping collection(MappingMetamodel metamodel, Class<?> owner, String name) {
+        return metamodel.getCollectionDescriptor(owner.getName() + "." + name).getAttributeMapping();
+    }
+
+    private static String column(ModelPart part) {
+        return new Columns().add(part, Kind.INT).names.get(0);
+    }
+
+    /**
+     * The columns of a section as the mapping names them, all of one table.
+     */
+    private static final class Columns {
+        private final List<String> names = new ArrayList<>();
+        private final List<Kind> kinds = new ArrayList<>();
+        private String table;
+
+        /** Adds the single column of a mapped part. */
+        Columns add(ModelPart part, Kind kind) {
+            List<SelectableMapping> selected = new ArrayList<>();
+            part.forEachSelectable((i, column) -> selected.add(column));
+            if (selected.size() != 1) {
+                throw new IllegalStateException(part.getNavigableRole() + " is mapped to "
+                        + selected.size() + " columns, the archive expects one");
+            }
+            addColumn(selected.get(0), kind);
+            return this;
+        }
+
+        /**
+         * Adds the foreign key columns of a collection table, each archived
+         * as the owner column it references.
+         */
+        Columns addKey(PluralAttributeMapping collection, Map<String, Kind> owner) {
+            List<String> targets = new ArrayList<>();
+            ForeignKeyDescriptor key = collection.getKeyDescriptor();
+            key.getTargetPart().forEachSelectable((i, column) -> targets.add(column.getSelectionExpression()));
+            key.getKeyPart().forEachSelectable((i, column) -> {
+                Kind kind = owner.get(targets.get(i));
+                if (kind == null) {
+                    throw new IllegalStateException(collection.getNavigableRole() + " references "
+                            + targets.get(i) + ", which the archive does not carry");
+                }
+                addColumn(column, kind);
+            });
+            if (targets.size() != owner.size()) {
+                throw new IllegalStateException(collection.getNavigableRole() + " is keyed by " + targets
+                        + ", the archive expects " + owner.size() + " columns");
+            }
+            return this;
+        }
+
+        private void addColumn(SelectableMapping column, Kind kind) {
+            if (table == null) {
+                table = column.getContainingTableExpression();
+            } else if (!table.equals(column.getContainingTableExpression())) {
+                throw new IllegalStateException(column.getSelectionExpression() + " is not in table " + table);
+            }
+            names.add(column.getSelectionExpression());
+            kinds.add(kind);
+        }
+
+        /** The first column archived as kind. */
+        String of(Kind kind) {
+            return names.get(kinds.indexOf(kind));
+        }
+
+        /**
+         * Builds the section, first checking that an entity section carries
+         * every column its entity, or a subclass, inserts into the table.
+         */
+        Section section(EntityPersister entity, Kind key, String filter, String order) {
+            if (entity != null) {
+                List<EntityMappingType> types = new ArrayList<>(entity.getSubMappingTypes());
+                types.add(entity);
+                for (EntityMappingType type : types) {
+                    type.forEachAttributeMapping(attribute -> {
+                        if (attribute.isPluralAttributeMapping() || attribute instanceof ToOneAttributeMapping toOne
+                                && toOne.getSideNature() == ForeignKeyDescriptor.Nature.TARGET) {
+                            return; // no column of this table
+                        }
+                        attribute.forEachSelectable((i, column) -> {
+                            if (column.isInsertable() && table.equals(column.getContainingTableExpression())
+                                    && !names.contains(column.getSelectionExpression())) {
+                                throw new IllegalStateException("Column " + table + "."
+                                        + column.getSelectionExpression() + " is not archived");
+                            }
+                        });
+                    });
+                }
+            }
+            return new Section(table, entity != null ? entity.getMappedClass() : null, key,
+                    names.toArray(String[]::new), kinds.toArray(Kind[]::new), filter, order);
+        }
+    }
+
+    private final int chunkSize;
+
+    /**
+     * Creates an archiver moving DEFAULT_CHUNK_SIZE rows at a time.
+     */
+    public GameArchive() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * Creates an archiver moving the given number of rows at a time: rows
+     * fetched per round trip and per archive chunk when exporting, rows per
+     * JDBC batch when importing.
+     *
+     * @param chunkSize the rows per chunk
+     * @throws IllegalArgumentException if chunkSize is not positive
+     */
+    public GameArchive(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Writes a stored game, with its whole history, to the given stream. The
+     * stream is flushed but not closed.
+     *
+     * @param gameId the identifier of the game
+     * @param out    the stream receiving the archive
+     * @return the number of rows written
+     * @throws IllegalArgumentException if no game has that identifier
+     * @throws IOException              if writing to the stream fails
+     */
+    public long exportGame(Long gameId, OutputStream out) throws IOException {
+        PersistenceEvents.RepositoryOperation event = beginOperation("export");
+        long rows = -1;
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        SessionFactory factory = sessionFactory();
+        Layout layout = layout(factory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel());
+        try (StatelessSession session = factory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                data.writeInt(MAGIC);
+                data.writeInt(VERSION);
+                long n = 0;
+                IdRuns cells = new IdRuns();
+                IdRuns generations = new IdRuns();
+                for (Section section : layout.gameSections()) {
+                    ChunkWriter chunks = new ChunkWriter(data);
+                    n += exportRows(session, section, "game", gameId, chunks, cells, generations);
+                    chunks.close();
+                    if (section.key() == Kind.BOARD && n == 0) {
+                        throw new IllegalArgumentException("No game with id " + gameId);
+                    }
+                }
+                for (Section section : layout.stateSections()) {
+                    ChunkWriter chunks = new ChunkWriter(data);
+                    for (int g = 0; g < generations.size(); g++) {
+                        n += exportRows(session, section, "generation", generations.idAt(g), chunks,
+                                cells, generations);
+                    }
+                    chunks.close();
+                }
+                data.flush();
+                rows = n;
+                return rows;
+            } finally {
+                tx.rollback(); // read only
+            }
+        } finally {
+            endOperation(event, rows);
+        }
+    }
+
+    /**
+     * Reads a game archive and stores its game, under new identifiers.
+     *
+     * @param in the stream holding the archive, read up to its end
+     * @return the identifier of the imported game
+     * @throws IOException      if the stream is not a game archive or
+     *                          reading it fails; nothing is stored
+     * @throws RuntimeException if a game with the same name exists or the
+     *                          transaction fails; nothing is stored
+     */
+    public Long importGame(InputStream in) throws IOException {
+        return importGame(in, null);
+    }
+
+    /**
+     * Reads a game archive and stores its game, under new identifiers and
+     * the given name.
+     *
+     * @param in   the stream holding the archive, read up to its end
+     * @param name the name of the imported game, null to keep the archived one
+     * @return the identifier of the imported game
+     * @throws IOException      if the stream is not a game archive or
+     *                          reading it fails; nothing is stored
+     * @throws RuntimeException if a game with the same name exists or the
+     *                          transaction fails; nothing is stored
+     */
+    public Long importGame(InputStream in, String name) throws IOException {
+        PersistenceEvents.RepositoryOperation event = beginOperation("import");
+        long rows = -1;
+        DataInputStream data = new DataInputStream(new BufferedInputStream(in));
+        if (data.readInt() != MAGIC) {
+            endOperation(event, rows);
+            throw new IOException("Not a game archive");
+        }
+        int version = data.readInt();
+        if (version != VERSION) {
+            endOperation(event, rows);
+            throw new IOException("Unsupported game archive version " + version);
+        }
+        SessionFactory factory = sessionFactory();
+        Layout layout = layout(factory.unwrap(SessionFactoryImplementor.class).getMappingMetamodel());
+        try (StatelessSession session = factory.openStatelessSession()) {
+            Transaction tx = session.beginTransaction();
+            try {
+                Importer importer = new Importer(session, data, name, layout);
+                session.doWork(importer::run);
+                tx.commit();
+                // rows were inserted behind Hibernate's back
+                factory.getCache().evictQueryRegions();
+                rows = importer.rows;
+                return importer.ids.get(Kind.GAME);
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                if (tx.isActive()) {
+                    tx.rollback();
+                }
+            }
+        } finally {
+            endOperation(event, rows);
+        }
+    }
+
+    /**
+     * Streams the rows of one section matching a parameter to the archive,
+     * recording the identifiers of cells and generations as they come.
+     *
+     * @return the number of rows written
+     */
+    private long exportRows(StatelessSession session, Section section, String parameter, Long value,
+            ChunkWriter chunks, IdRuns cells, IdRuns generations) throws IOException {
+        long n = 0;
+        try (ScrollableResults<Object[]> results = session.createNativeQuery(section.select(), Object[].class)
+                .setParameter(parameter, value)
+                .setReadOnly(true)
+                .setFetchSize(chunkSize)
+                .scroll(ScrollMode.FORWARD_ONLY)) {
+            while (results.next()) {
+                Object[] row = results.get();
+                DataOutputStream out = chunks.nextRow();
+                int column = 0;
+                for (Kind kind : section.kinds()) {
+                    Object v = kind == Kind.GAME || kind == Kind.BOARD ? null : row[column++];
+                    switch (kind) {
+                        case GAME, BOARD -> { } // the same for every row
+                        case KEY -> {
+                            if (section.key() == Kind.CELL) {
+                                cells.add(((Number) v).longValue());
+                            } else if (section.key() == Kind.GENERATION) {
+                                generations.add(((Number) v).longValue());
+                            }
+                        }
+                        case CELL -> out.writeInt(positionOf(cells, v, "cell"));
+                        case GENERATION -> out.writeInt(positionOf(generations, v, "generation"));
+                        default -> write(out, kind, v);
+                    }
+                }
+                n++;
+            }
+        }
+        return n;
+    }
+
+    private static int positionOf(IdRuns ids, Object id, String what) {
+        int position = ids.positionOf(((Number) id).longValue());
+        if (position < 0) {
+            throw new IllegalStateException("Row references a " + what + " of another game: " + id);
+        }
+        return position;
+    }
+
+    private static void write(DataOutputStream out, Kind kind, Object value) throws IOException {
+        switch (kind) {
+            case INT -> out.writeInt(((Number) value).intValue());
+            case OPT_INT -> {
+                out.writeBoolean(value != null);
+                if (value != null) {
+                    out.writeInt(((Number) value).intValue());
+                }
+            }
+            case BOOL -> out.writeBoolean((Boolean) value);
+            case OPT_BOOL -> out.writeByte(value == null ? -1 : (Boolean) value ? 1 : 0);
+            case OPT_SMALL -> out.writeByte(value == null ? -1 : ((Number) value).intValue());
+            case TEXT -> out.writeUTF((String) value);
+            default -> throw new IllegalStateException("Column not archived: " + kind);
+        }
+    }
+
+    /**
+     * Buffers the rows of a section and writes them to the archive by
+     * chunks, each preceded by its row count.
+     */
+    private final class ChunkWriter {
+        private final DataOutputStream archive;
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+        private final DataOutputStream rows = new DataOutputStream(buffer);
+        private int count;
+
+        ChunkWriter(DataOutputStream archive) {
+            this.archive = archive;
+        }
+
+        DataOutputStream nextRow() throws IOException {
+            if (count == chunkSize) {
+                flushChunk();
+            }
+            count++;
+            return rows;
+        }
+
+        private void flushChunk() throws IOException {
+            archive.writeInt(count);
+            buffer.writeTo(archive);
+            buffer.reset();
+            count = 0;
+        }
+
+        /** Writes the last chunk, if any, and the end of the section. */
+        void close() throws IOException {
+            if (count > 0) {
+                flushChunk();
+            }
+            archive.writeInt(0);
+        }
+    }
+
+    /**
+     * Reads the sections of an archive and inserts their rows through the
+     * connection of a StatelessSession, one JDBC batch per chunk.
+     */
+    private final class Importer {
+        private final SharedSessionContractImplementor session;
+        private final DataInputStream in;
+        private final String name;
+        private final Layout layout;
+
+        /** The new identifiers of the game and of the board. */
+        private final Map<Kind, Long> ids = new HashMap<>();
+        private final IdRuns cells = new IdRuns();
+        private final IdRuns generations = new IdRuns();
+        private final Map<Section, BeforeExecutionGenerator> generators = new HashMap<>();
+        private long rows;
+
+        Importer(StatelessSession session, DataInputStream in, String name, Layout layout) {
+            this.session = (SharedSessionContractImplementor) session;
+            this.in = in;
+            this.name = name;
+            this.layout = layout;
+        }
+
+        void run(Connection connection) throws SQLException {
+            try {
+                for (Section section : layout.gameSections()) {
+                    importRows(connection, section);
+                }
+                if (!ids.containsKey(Kind.GAME)) {
+                    throw new IOException("Game archive holds no game");
+                }
+                for (Section section : layout.stateSections()) {
+                    importRows(connection, section);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void importRows(Connection connection, Section section) throws IOException, SQLException {
+            Kind[] kinds = section.kinds();
+            try (PreparedStatement insert = connection.prepareStatement(section.insert())) {
+                for (int count = in.readInt(); count > 0; count = in.readInt()) {
+                    for (int r = 0; r < count; r++) {
+                        for (int i = 0; i < kinds.length; i++) {
+                            insert.setObject(i + 1, read(section, kinds[i], i));
+                        }
+                        insert.addBatch();
+                    }
+                    insert.executeBatch();
+                    rows += count;
+                }
+            }
+        }
+
+        private Object read(Section section, Kind kind, int column) throws IOException {
+            return switch (kind) {
+                case KEY -> newKey(section);
+                case GAME -> ids.get(Kind.GAME);
+                case BOARD -> ids.get(Kind.BOARD);
+                case CELL -> translate(cells, in.readInt(), "cell");
+                case GENERATION -> translate(generations, in.readInt(), "generation");
+                case INT -> in.readInt();
+                case OPT_INT -> in.readBoolean() ? in.readInt() : null;
+                case BOOL -> in.readBoolean();
+                case OPT_BOOL -> {
+                    byte b = in.readByte();
+                    yield b < 0 ? null : b == 1;
+                }
+                case OPT_SMALL -> {
+                    byte b = in.readByte();
+                    yield b < 0 ? null : b;
+                }
+                case TEXT -> {
+                    String text = in.readUTF();
+                    yield section.key() == Kind.GAME && name != null ? name : text;
+                }
+            };
+        }
+
+        /**
+         * Draws a new identifier from the generator of the section's entity,
+         * so that it never clashes with those Hibernate assigns later.
+         */
+        private Long newKey(Section section) {
+            BeforeExecutionGenerator generator = generators.computeIfAbsent(section,
+                    s -> (BeforeExecutionGenerator) session.getFactory().getMappingMetamodel()
+                            .getEntityDescriptor(s.entity()).getGenerator());
+            Long id = ((Number) generator.generate(session, null, null, EventType.INSERT)).longValue();
+            if (section.key() == Kind.BOARD || section.key() == Kind.GAME) {
+                ids.put(section.key(), id);
+            } else if (section.key() == Kind.CELL) {
+                cells.add(id);
+            } else if (section.key() == Kind.GENERATION) {
+                generations.add(id);
+            }
+            return id;
+        }
+
+        private Long translate(IdRuns ids, int position, String what) throws IOException {
+            if (position < 0 || position >= ids.size()) {
+                throw new IOException("Game archive references unknown " + what + " " + position);
+            }
+            return ids.idAt(position);
+        }
+    }
+
+    /**
+     * Ascending identifiers numbered by position, stored as runs of
+     * consecutive values: one run per block handed out by a pooled sequence,
+     * however many identifiers the block holds.
+     */
+    private static final class IdRuns {
+        private int[] starts = new int[16];
+        private long[] firstIds = new long[16];
+        private int runs;
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        /**
+         * Appends the identifier following all those added so far.
+         */
+        void add(long id) {
+            if (runs > 0) {
+                long next = firstIds[runs - 1] + (size - starts[runs - 1]);
+                if (id == next) {
+                    size++;
+                    return;
+                }
+                if (id < next) {
+                    throw new IllegalStateException("Identifiers out of order: " + id + " after " + (next - 1));
+                }
+            }
+            if (runs == starts.length) {
+                starts = Arrays.copyOf(starts, runs * 2);
+                firstIds = Arrays.copyOf(firstIds, runs * 2);
+            }
+            starts[runs] = size;
+            firstIds[runs] = id;
+            runs++;
+            size++;
+        }
+
+        long idAt(int position) {
+            int run = floor(starts, position);
+            return firstIds[run] + (position - starts[run]);
+        }
+
+        /**
+         * @return the position of id, or -1 if it was never added
+         */
+        int positionOf(long id) {
+            int run = runs == 0 || id < firstIds[0] ? -1 : floor(firstIds, id);
+            if (run < 0) {
+                return -1;
+            }
+            int end = run + 1 < runs ? starts[run + 1] : size;
+            long offset = id - firstIds[run];
+            return offset < end - starts[run] ? starts[run] + (int) offset : -1;
+        }
+
+        /** Finds the last run whose first value is at most key. */
+        private int floor(int[] values, int key) {
+            int i = Arrays.binarySearch(values, 0, runs, key);
+            return i >= 0 ? i : -i - 2;
+        }
+
+        private int floor(long[] values, long key) {
+            int i = Arrays.binarySearch(values, 0, runs, key);
+            return i >= 0 ? i : -i - 2;
+        }
+    }
+
+    private static SessionFactory sessionFactory() {
+        return JPAUtil.getCurrentFactory().unwrap(SessionFactory.class);
+    }
+
+    private static PersistenceEvents.RepositoryOperation beginOperation(String operation) {
+        PersistenceEvents.RepositoryOperation event = new PersistenceEvents.RepositoryOperation();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    private static void endOperation(PersistenceEvents.RepositoryOperation event, long rows) {
+        if (event.shouldCommit()) {
+            event.entity = "Game";
+            event.results = (int) Math.max(0, Math.min(rows, Integer.MAX_VALUE));
+            event.succeeded = rows >= 0;
+            event.commit();
+        }
+    }
+}
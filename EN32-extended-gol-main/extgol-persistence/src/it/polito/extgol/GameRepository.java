@@ -0,0 +1,422 @@
+package it.polito.extgol;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.query.NativeQuery;
+
+import jakarta.persistence.EntityManager;
+
+/**
+ * Repository for Game aggregates.
+ */
+public class GameRepository extends GenericExtGOLRepository<Game, Long> {
+
+    /**
+     * Projection of a stored game: enough to list games without loading
+     * their boards or histories.
+     *
+     * @param id          the game identifier
+     * @param name        the game name
+     * @param width       the board width
+     * @param height      the board height
+     * @param generations the number of stored generations
+     */
+    public record GameSummary(Long id, String name, Integer width, Integer height, Integer generations) {}
+
+    /**
+     * Projection of a stored cell in its current state.
+     *
+     * @param id         the cell identifier
+     * @param x          the cell column
+     * @param y          the cell row
+     * @param type       the cell type
+     * @param alive      whether the cell is alive
+     * @param lifePoints the cell life points
+     */
+    public record CellState(Long id, Integer x, Integer y, CellType type, Boolean alive, Integer lifePoints) {}
+
+    /**
+     * History of one cell across all the generations of its game, indexed by
+     * generation step.
+     *
+     * @param alive      whether the cell was alive at each step
+     * @param lifePoints the life points of the cell at each step
+     */
+    public record CellTimeline(boolean[] alive, int[] lifePoints) {
+
+        /**
+         * @return the number of steps in the timeline
+         */
+        public int steps() {
+            return alive.length;
+        }
+    }
+
+    public GameRepository() {
+        super(Game.class);
+    }
+
+    /**
+     * Lists every stored game as a GameSummary, ordered by identifier, with
+     * a single query and without managing any entity.
+     *
+     * @return the summaries of all games
+     */
+    public List<GameSummary> findSummaries() {
+        return JPAUtil.withEntityManager(false, em ->
+                em.createQuery(
+                        "SELECT g.id, g.name, b.width, b.height, SIZE(g.generations)"
+                        + " FROM Game g JOIN g.board b ORDER BY g.id", GameSummary.class)
+                        .getResultList());
+    }
+
+    /**
+     * Passes the cells of one game, row by row, to the given action as
+     * CellState records, in constant memory whatever the board size.
+     *
+     * @param gameId the identifier of the game
+     * @param action the callback receiving each cell
+     * @return the number of cells streamed
+     */
+    public long streamCellStates(Long gameId, Consumer<? super CellState> action) {
+        return scroll("streamCellStates",
+                "SELECT c.id, c.cellCoord.x, c.cellCoord.y, c.type, c.isAlive, c.lifepoints"
+                + " FROM Cell c WHERE c.game.id = :game"
+                + " ORDER BY c.cellCoord.y, c.cellCoord.x", CellState.class,
+                Map.of("game", gameId), action);
+    }
+
+    /**
+     * Returns the aliveness and life points of the cell at (x, y) at every
+     * step of a game, with a single query and without loading any
+     * generation.
+     *
+     * The cell is looked up by cell_coord_idx, and its rows in
+     * generation_state and generation_energy by the (cell_id, generation_id)
+     * indexes declared in orm.xml, so the cost grows with the number of
+     * steps, not with the size of the board.
+     *
+     * @param gameId the identifier of the game
+     * @param x      the cell column
+     * @param y      the cell row
+     * @return the timeline of the cell, empty if the game or cell is unknown
+     */
+    public CellTimeline cellTimeline(Long gameId, int x, int y) {
+        PersistenceEvents.RepositoryOperation event = beginOperation("cellTimeline");
+        int steps = -1;
+        try {
+            @SuppressWarnings("unchecked")
+            List<Object[]> rows = JPAUtil.withEntityManager(false, em -> em.createNativeQuery(
+                    "SELECT g.step, s.is_alive, e.life_points"
+                    + " FROM Cell c"
+                    + " JOIN generation_state s ON s.cell_id = c.id"
+                    + " JOIN generation g ON g.id = s.generation_id"
+                    + " LEFT JOIN generation_energy e"
+                    + " ON e.cell_id = s.cell_id AND e.generation_id = s.generation_id"
+                    + " WHERE c.game_id = :game AND c.cell_x = :x AND c.cell_y = :y"
+                    + " ORDER BY g.step")
+                    .setParameter("game", gameId)
+                    .setParameter("x", x)
+                    .setParameter("y", y)
+                    .getResultList());
+            int length = rows.isEmpty() ? 0 : ((Number) rows.get(rows.size() - 1)[0]).intValue() + 1;
+            CellTimeline timeline = new CellTimeline(new boolean[length], new int[length]);
+            for (Object[] row : rows) {
+                int step = ((Number) row[0]).intValue();
+                timeline.alive()[step] = (Boolean) row[1];
+                timeline.lifePoints()[step] = row[2] != null ? ((Number) row[2]).intValue() : 0;
+            }
+            steps = rows.size();
+            return timeline;
+        } finally {
+            endOperation(event, steps);
+        }
+    }
+
+    /**
+     * Loads the tiles and cells of a game within a rectangle of its board,
+     * with their state at one generation step, so that huge stored boards
+     * can be browsed region by region in memory bounded by the rectangle.
+     *
+     * Both queries select tiles by tile_coord_idx, rows first, and the state
+     * rows of their cells by the (cell_id, generation_id) indexes; nothing
+     * outside the rectangle is read.
+     *
+     * @param gameId the identifier of the game
+     * @param step   the generation step of the state
+     * @param x      the leftmost column of the rectangle
+     * @param y      the topmost row of the rectangle
+     * @param width  the number of columns, positive
+     * @param height the number of rows, positive
+     * @return the region; without tiles if the game, step or rectangle lies
+     *         outside the stored data
+     * @throws IllegalArgumentException if width or height is not positive
+     */
+    public BoardRegion loadRegion(Long gameId, int step, int x, int y, int width, int height) {
+        if (width < 1 || height < 1) {
+            throw new IllegalArgumentException("Region must not be empty: " + width + "x" + height);
+        }
+        PersistenceEvents.RepositoryOperation event = beginOperation("loadRegion");
+        int loaded = -1;
+        try {
+            BoardRegion region = JPAUtil.withEntityManager(false, em -> {
+                Map<Coord, Tile> tiles = new HashMap<>();
+                em.createQuery(
+                        "SELECT t FROM Tile t JOIN FETCH t.cell"
+                        + " WHERE t.game.id = :game"
+                        + " AND t.tileCoord.y BETWEEN :y0 AND :y1 AND t.tileCoord.x BETWEEN :x0 AND :x1",
+                        Tile.class)
+                        .setParameter("game", gameId)
+                        .setParameter("x0", x).setParameter("x1", x + width - 1)
+                        .setParameter("y0", y).setParameter("y1", y + height - 1)
+                        .getResultStream()
+                        .forEach(t -> tiles.put(t.getCoordinates(), t));
+                @SuppressWarnings("unchecked")
+                List<Object[]> states = em.createNativeQuery(
+                        "SELECT t.tile_x, t.tile_y, s.is_alive, e.life_points"
+                        + " FROM Tile t"
+                        + " JOIN generation g ON g.game_id = t.game_id AND g.step = :step"
+                        + " JOIN generation_state s ON s.cell_id = t.cell_id AND s.generation_id = g.id"
+                        + " LEFT JOIN generation_energy e"
+                        + " ON e.cell_id = s.cell_id AND e.generation_id = s.generation_id"
+                        + " WHERE t.game_id = :game"
+                        + " AND t.tile_y BETWEEN :y0 AND :y1 AND t.tile_x BETWEEN :x0 AND :x1")
+                        .setParameter("game", gameId)
+                        .setParameter("step", step)
+                        .setParameter("x0", x).setParameter("x1", x + width - 1)
+                        .setParameter("y0", y).setParameter("y1", y + height - 1)
+                        .getResultList();
+                BoardRegion r = new BoardRegion(x, y, width, height, step, tiles,
+                        new boolean[width * height], new int[width * height]);
+                for (Object[] row : states) {
+                    int i = r.indexOf(new Coord(((Number) row[0]).intValue(), ((Number) row[1]).intValue()));
+                    r.alive()[i] = (Boolean) row[2];
+                    r.lifePoints()[i] = row[3] != null ? ((Number) row[3]).intValue() : 0;
+                }
+                return r;
+            });
+            loaded = region.tiles().size();
+            return region;
+        } finally {
+            endOperation(event, loaded);
+        }
+    }
+
+    /**
+     * Loads a complete Game, usable once detached: its board with every tile
+     * and cell, and all generations with their aliveness and energy maps.
+     * Same as load(id, LoadProfile.FULL_HISTORY).
+     *
+     * @param id the identifier of the game to load
+     * @return the loaded Game, or null if no game has that id
+     */
+    public Game load(Long id) {
+        return load(id, LoadProfile.FULL_HISTORY);
+    }
+
+    /**
+     * Loads the part of a Game the given profile covers, usable once
+     * detached within that part.
+     *
+     * The game is read through the fetch graph of the profile. Generations,
+     * if the profile needs them, come from separate queries, one for the list
+     * and one per map, which keeps the result sets free of the cartesian
+     * product a single multi-fetch would produce; the persistence context
+     * stitches the pieces back together. Transient tile neighbors are
+     * re-linked when tiles are loaded. Within a unit of work the game stays
+     * managed by the unit instead, and lazily loads whatever is missing.
+     *
+     * @param id      the identifier of the game to load
+     * @param profile what to load
+     * @return the loaded Game, or null if no game has that id
+     */
+    public Game load(Long id, LoadProfile profile) {
+        PersistenceEvents.GameLoaded event = new PersistenceEvents.GameLoaded();
+        event.begin();
+        Game game = null;
+        boolean loaded = false;
+        try {
+            game = JPAUtil.withEntityManager(false, em -> fetchAggregate(em, id, profile));
+            loaded = game != null;
+            return game;
+        } finally {
+            if (event.shouldCommit()) {
+                event.gameId = id != null ? id : 0;
+                event.found = game != null;
+                event.profile = profile.name();
+                if (loaded && profile == LoadProfile.FULL_HISTORY) {
+                    event.generations = game.getGenerations().size();
+                    event.rows = PersistenceEvents.rowsOf(game);
+                }
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Asynchronous load(...), on the persistence executor: several games can
+     * be loaded in parallel, up to one per pooled connection.
+     *
+     * @param id the identifier of the game to load
+     * @return a future of the loaded Game, or of null if no game has that id
+     */
+    public CompletableFuture<Game> loadAsync(Long id) {
+        return PersistenceExecutor.supply(() -> load(id));
+    }
+
+    /**
+     * Asynchronous load(id, profile).
+     *
+     * @param id      the identifier of the game to load
+     * @param profile what to load
+     * @return a future of the loaded Game, or of null if no game has that id
+     */
+    public CompletableFuture<Game> loadAsync(Long id, LoadProfile profile) {
+        return PersistenceExecutor.supply(() -> load(id, profile));
+    }
+
+    /**
+     * Asynchronous findSummaries().
+     *
+     * @return a future of the summaries of all games
+     */
+    public CompletableFuture<List<GameSummary>> findSummariesAsync() {
+        return PersistenceExecutor.supply(this::findSummaries);
+    }
+
+    private static Game fetchAggregate(EntityManager em, Long id, LoadProfile profile) {
+        Game game = em.createQuery("SELECT g FROM Game g WHERE g.id = :id", Game.class)
+                .setParameter("id", id)
+                .setHint(AvailableHints.HINT_SPEC_FETCH_GRAPH, em.getEntityGraph(profile.getGraph()))
+                .getResultStream().findFirst().orElse(null);
+        if (game == null) {
+            return null;
+        }
+        if (profile.getHistory() != LoadProfile.History.NONE) {
+            em.createQuery(
+                    "SELECT g FROM Game g LEFT JOIN FETCH g.generations WHERE g = :game", Game.class)
+                    .setParameter("game", game)
+                    .getResultList();
+            String which = profile.getHistory() == LoadProfile.History.LAST
+                    ? " AND gen.step = (SELECT MAX(last.step) FROM Generation last WHERE last.game = :game)"
+                    : "";
+            em.createQuery(
+                    "SELECT gen FROM Generation gen LEFT JOIN FETCH gen.cellAlivenessStates"
+                    + " WHERE gen.game = :game" + which, Generation.class)
+                    .setParameter("game", game)
+                    .getResultList();
+            em.createQuery(
+                    "SELECT gen FROM Generation gen LEFT JOIN FETCH gen.cellEnergyStates"
+                    + " WHERE gen.game = :game" + which, Generation.class)
+                    .setParameter("game", game)
+                    .getResultList();
+        }
+        if (profile != LoadProfile.HEADER) {
+            game.getBoard().linkNeighbors();
+        }
+        return game;
+    }
+
+    /**
+     * Deletes a game with its whole aggregate through deleteAllById(...).
+     *
+     * A cascaded em.remove(...) cannot delete a game: the game row goes
+     * before its board, whose tiles and cells are removed last and still
+     * reference the game, which violates their foreign key.
+     *
+     * @param game the game to remove
+     * @throws RuntimeException if the transaction fails
+     */
+    @Override
+    public void delete(Game game) {
+        deleteAllById(List.of(game.getId()));
+    }
+
+    /**
+     * Deletes the games with the given identifiers, with their boards, tiles,
+     * cells, generations and event schedules, using bulk statements instead
+     * of loading and removing each entity.
+     *
+     * Cascades do not apply to bulk statements, so every table of the
+     * aggregate is emptied explicitly, referencing rows first: per-generation
+     * states and event schedules, generations, tiles, cells, games and
+     * finally boards. Identifiers are processed FLUSH_BATCH at a time, each
+     * chunk being one batch of the result; unknown identifiers are ignored.
+     * Affected second-level cache regions are invalidated. Within a unit of
+     * work, pending changes are flushed first; instances of the deleted games
+     * already managed by the unit are not removed from it and must not be
+     * used afterwards.
+     *
+     * @param ids the identifiers of the games to remove
+     * @return the count of deleted games and per-batch timings
+     * @throws RuntimeException if the transaction fails; nothing is deleted
+     */
+    @Override
+    public BatchResult deleteAllById(Collection<? extends Long> ids) {
+        PersistenceEvents.RepositoryOperation event = beginOperation("deleteAll");
+        int deleted = -1;
+        List<Long> all = new ArrayList<>(ids);
+        long[] batchNanos = new long[(all.size() + FLUSH_BATCH - 1) / FLUSH_BATCH];
+        long[] start = new long[1];
+        try {
+            deleted = JPAUtil.withEntityManager(true, em -> {
+                em.flush();
+                int games = 0;
+                for (int from = 0, batch = 0; from < all.size(); from += FLUSH_BATCH, batch++) {
+                    start[0] = System.nanoTime();
+                    List<Long> chunk = all.subList(from, Math.min(from + FLUSH_BATCH, all.size()));
+                    List<Integer> boards = em.createQuery(
+                            "SELECT g.board.id FROM Game g WHERE g.id IN :ids", Integer.class)
+                            .setParameter("ids", chunk)
+                            .getResultList();
+                    deleteRows(em, "generation_state", chunk);
+                    deleteRows(em, "generation_energy", chunk);
+                    deleteRows(em, "game_events", chunk);
+                    for (String entity : List.of("Generation", "Tile", "Cell")) {
+                        em.createQuery("DELETE FROM " + entity + " e WHERE e.game.id IN :ids")
+                                .setParameter("ids", chunk)
+                                .executeUpdate();
+                    }
+                    games += em.createQuery("DELETE FROM Game g WHERE g.id IN :ids")
+                            .setParameter("ids", chunk)
+                            .executeUpdate();
+                    if (!boards.isEmpty()) {
+                        em.createQuery("DELETE FROM Board b WHERE b.id IN :ids")
+                                .setParameter("ids", boards)
+                                .executeUpdate();
+                    }
+                    batchNanos[batch] = System.nanoTime() - start[0];
+                }
+                start[0] = System.nanoTime();
+                return games;
+            });
+            // the last batch also covers the commit
+            if (batchNanos.length > 0) {
+                batchNanos[batchNanos.length - 1] += System.nanoTime() - start[0];
+            }
+            return new BatchResult(deleted, batchNanos);
+        } finally {
+            endOperation(event, deleted);
+        }
+    }
+
+    /**
+     * Deletes the rows of a collection table belonging to the given games.
+     * Naming the table as the query space limits cache invalidation to the
+     * collections stored there.
+     */
+    private static void deleteRows(EntityManager em, String table, List<Long> gameIds) {
+        em.createNativeQuery("DELETE FROM " + table + " WHERE game_id IN (:ids)")
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace(table)
+                .setParameter("ids", gameIds)
+                .executeUpdate();
+    }
+}
@@ -0,0 +1,600 @@
+package it.polito.extgol;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.persister.entity.EntityPersister;
+import org.hibernate.query.SelectionQuery;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceUnitUtil;
+
+/**
+ * A generic JPA repository providing basic operations for any
+ * mapped entity type. Subclasses must supply the specific entity class to
+ * enable runtime operations.
+ *
+ * Each operation runs with its own EntityManager and, if it writes, its own
+ * transaction, unless it is called within a unit of work started with
+ * JPAUtil.inTransaction(...): it then joins the EntityManager and transaction
+ * of the unit, and its changes commit with the rest of the unit.
+ *
+ * The ...Async variants run the same operations on the persistence executor
+ * and return at once with a CompletableFuture, so that independent reads and
+ * writes can be issued in parallel and their results composed. They never
+ * join a unit of work, and their entities are detached when delivered.
+ *
+ * @param <E> the type of the JPA entity
+ * @param <I> the type of the entity’s identifier
+ */
+public class GenericExtGOLRepository<E, I> {
+
+    /** Rows fetched per round trip, and read between two clears, when scrolling. */
+    protected static final int SCROLL_BATCH = 500;
+
+    /**
+     * Entities written between two flushes by the batch operations, matching
+     * hibernate.jdbc.batch_size in persistence.xml.
+     */
+    public static final int FLUSH_BATCH = 100;
+
+    private final Class<E> entityClass;
+
+    /** What the mapping says about the entity, resolved on first use. */
+    private volatile EntityMapping mapping;
+
+    /**
+     * The entity name, the name of the identifier attribute, which orders
+     * scrolls and pages, and whether the entity lives in the second-level
+     * cache, and so its queries in the query cache.
+     */
+    private record EntityMapping(String entityName, String idName, boolean cached) {}
+
+    /**
+     * Constructs a repository for the given entity class.
+     *
+     * The mapping of the class is only looked up by the first operation, so
+     * that creating a repository does not start Hibernate, which warmUp()
+     * may still be starting in the background.
+     *
+     * @param entityClass the Class object for the entity type; must be non-null
+     * @throws NullPointerException     if entityClass is null
+     */
+    protected GenericExtGOLRepository(Class<E> entityClass) {
+        Objects.requireNonNull(entityClass, "Entity class must not be null");
+        this.entityClass = entityClass;
+    }
+
+    /**
+     * Looks up the mapping of the entity class, once.
+     *
+     * @throws IllegalArgumentException if the class is not a mapped entity
+     */
+    private EntityMapping mapping() {
+        EntityMapping current = mapping;
+        if (current == null) {
+            String name = getEntityName(entityClass);
+            EntityPersister persister = JPAUtil.getCurrentFactory().unwrap(SessionFactoryImplementor.class)
+                    .getMappingMetamodel().getEntityDescriptor(entityClass);
+            current = new EntityMapping(name, persister.getIdentifierPropertyName(), persister.canReadFromCache());
+            mapping = current;
+        }
+        return current;
+    }
+
+    /**
+     * @return the entity name to use in queries
+     * @throws IllegalArgumentException if the class is not a mapped entity
+     */
+    protected String entityName() {
+        return mapping().entityName();
+    }
+
+    /**
+     * @return the name of the identifier attribute
+     * @throws IllegalArgumentException if the class is not a mapped entity
+     */
+    protected String idName() {
+        return mapping().idName();
+    }
+
+    /**
+     * Resolves the JPA entity name for use in queries.
+     *
+     * The model classes are mapped in META-INF/orm.xml rather than with
+     * annotations, so the name is taken from the metamodel, which reflects
+     * both.
+     *
+     * @param entityClass the Class to look up
+     * @return the entity name, by default the simple class name
+     * @throws IllegalArgumentException if the class is not a mapped entity
+     */
+    protected static String getEntityName(Class<?> entityClass) {
+        try {
+            return JPAUtil.getCurrentFactory().getMetamodel().entity(entityClass).getName();
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                "Class " + entityClass.getName() + " is not a mapped entity", e);
+        }
+    }
+
+    /**
+     * Finds an entity instance by its identifier.
+     *
+     * @param id the primary key of the entity to retrieve
+     * @return an Optional containing the found entity, or empty if not found
+     */
+    public Optional<E> findById(I id) {
+        PersistenceEvents.RepositoryOperation event = beginOperation("findById");
+        int found = -1;
+        try {
+            E entity = JPAUtil.withEntityManager(false, em -> em.find(entityClass, id));
+            found = entity != null ? 1 : 0;
+            return Optional.ofNullable(entity);
+        } finally {
+            endOperation(event, found);
+        }
+    }
+
+    /**
+     * Retrieves all instances of the entity type from the database.
+     *
+     * For entities in the second-level cache the result goes to the query
+     * cache as well, and is served from there until the table changes.
+     *
+     * @return a List containing all persisted entities of this type
+     */
+    public List<E> findAll() {
+        PersistenceEvents.RepositoryOperation event = beginOperation("findAll");
+        List<E> all = null;
+        try {
+            all = JPAUtil.withEntityManager(false, em ->
+                    em.createQuery("SELECT e FROM " + entityName() + " e", entityClass)
+                            .setHint(AvailableHints.HINT_CACHEABLE, mapping().cached())
+                            .getResultList());
+            return all;
+        } finally {
+            endOperation(event, all != null ? all.size() : -1);
+        }
+    }
+
+    /**
+     * Passes every instance of the entity type, in identifier order, to the
+     * given action without ever holding more than SCROLL_BATCH of them.
+     *
+     * Entities are read through a forward-only cursor and the persistence
+     * context is cleared every SCROLL_BATCH rows, so memory stays constant
+     * however large the table. Entities handed to the action are read-only
+     * and become detached soon after: the action must not keep them, nor
+     * navigate their lazy associations once it returns.
+     *
+     * @param action the callback receiving each entity
+     * @return the number of entities streamed
+     */
+    public long stream(Consumer<? super E> action) {
+        Objects.requireNonNull(action, "Action must not be null");
+        return scroll("stream",
+                "SELECT e FROM " + entityName() + " e ORDER BY e." + idName(),
+                entityClass, Map.of(), action);
+    }
+
+    /**
+     * Retrieves the page of entities following the given identifier, in
+     * identifier order.
+     *
+     * Keyset pagination: the next page starts after the last identifier of
+     * the previous one, so each page costs an index seek rather than
+     * skipping all earlier rows as an offset would, and concurrent inserts
+     * never shift the page boundaries.
+     *
+     * @param afterId the identifier of the last entity of the previous page,
+     *                or null for the first page
+     * @param limit   the maximum number of entities returned, positive
+     * @return the page, empty once past the last entity
+     * @throws IllegalArgumentException if limit is not positive
+     */
+    public List<E> findPage(I afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Page limit must be positive: " + limit);
+        }
+        PersistenceEvents.RepositoryOperation event = beginOperation("findPage");
+        List<E> page = null;
+        try {
+            String where = afterId != null ? " WHERE e." + idName() + " > :after" : "";
+            page = JPAUtil.withEntityManager(false, em -> {
+                var query = em.createQuery(
+                        "SELECT e FROM " + entityName() + " e" + where + " ORDER BY e." + idName(), entityClass)
+                        .setMaxResults(limit);
+                if (afterId != null) {
+                    query.setParameter("after", afterId);
+                }
+                return query.getResultList();
+            });
+            return page;
+        } finally {
+            endOperation(event, page != null ? page.size() : -1);
+        }
+    }
+
+    /**
+     * Runs a query through a forward-only cursor, passing each result to the
+     * action and clearing the persistence context every SCROLL_BATCH rows.
+     * Within a unit of work the context is left alone, so as not to detach
+     * the entities of the unit: memory then grows with the rows read.
+     *
+     * Meant for streams of entities as well as projections: with a record
+     * type whose constructor matches the selected columns, Hibernate builds
+     * the records directly and no entity is ever managed.
+     *
+     * @param <R>        the result type
+     * @param operation  the operation name reported to Flight Recorder
+     * @param jpql       the query
+     * @param resultType the type of each result
+     * @param parameters the named query parameters
+     * @param action     the callback receiving each result
+     * @return the number of results streamed
+     */
+    protected <R> long scroll(String operation, String jpql, Class<R> resultType,
+            Map<String, ?> parameters, Consumer<? super R> action) {
+        PersistenceEvents.RepositoryOperation event = beginOperation(operation);
+        long count = -1;
+        boolean clear = !JPAUtil.inUnitOfWork();
+        try {
+            // the transaction keeps one connection, and so the cursor, open
+            // across the lazy loads of the action
+            count = JPAUtil.withEntityManager(true, em -> {
+                SelectionQuery<R> query = em.unwrap(Session.class).createSelectionQuery(jpql, resultType)
+                        .setReadOnly(true)
+                        .setFetchSize(SCROLL_BATCH);
+                parameters.forEach(query::setParameter);
+                long n = 0;
+                try (ScrollableResults<R> results = query.scroll(ScrollMode.FORWARD_ONLY)) {
+                    while (results.next()) {
+                        action.accept(results.get());
+                        if (++n % SCROLL_BATCH == 0 && clear) {
+                            em.clear();
+                        }
+                    }
+                }
+                return n;
+            });
+            return count;
+        } finally {
+            endOperation(event, (int) Math.min(count, Integer.MAX_VALUE));
+        }
+    }
+
+    /**
+     * Persists a new entity instance to the database.
+     *
+     * @param entity the entity to be created and managed
+     * @throws RuntimeException if the transaction fails
+     */
+    public void create(E entity) {
+        PersistenceEvents.RepositoryOperation event = beginOperation("create");
+        int written = -1;
+        try {
+            JPAUtil.withEntityManager(true, em -> {
+                em.persist(entity);
+                return null;
+            });
+            written = 1;
+        } finally {
+            endOperation(event, written);
+        }
+    }
+
+    /**
+     * Merges changes of a detached entity into the current persistence context.
+     *
+     * @param entity the modified entity to synchronize with the database
+     * @throws RuntimeException if the transaction fails
+     */
+    public void update(E entity) {
+        PersistenceEvents.RepositoryOperation event = beginOperation("update");
+        int written = -1;
+        try {
+            JPAUtil.withEntityManager(true, em -> {
+                em.merge(entity);
+                return null;
+            });
+            written = 1;
+        } finally {
+            endOperation(event, written);
+        }
+    }
+
+    /**
+     * Deletes an entity instance from the database.
+     *
+     * @param entity the entity to remove
+     * @throws RuntimeException if the transaction fails
+     */
+    public void delete(E entity) {
+        PersistenceEvents.RepositoryOperation event = beginOperation("delete");
+        int written = -1;
+        try {
+            JPAUtil.withEntityManager(true, em -> {
+                E managed = em.contains(entity) ? entity : em.merge(entity);
+                em.remove(managed);
+                return null;
+            });
+            written = 1;
+        } finally {
+            endOperation(event, written);
+        }
+    }
+
+    /**
+     * Persists all the given new entities in a single transaction, flushing
+     * and clearing the persistence context every FLUSH_BATCH entities.
+     *
+     * @param entities the entities to create
+     * @return the count and per-batch timings
+     * @throws RuntimeException if the transaction fails; nothing is written
+     */
+    public BatchResult createAll(Collection<? extends E> entities) {
+        return createAll(entities, FLUSH_BATCH);
+    }
+
+    /**
+     * Persists all the given new entities in a single transaction, flushing
+     * and clearing the persistence context every batchSize entities, so that
+     * the context never holds more than one batch and each flush maps onto
+     * JDBC batches.
+     *
+     * @param entities  the entities to create
+     * @param batchSize the entities written between two flushes, positive
+     * @return the count and per-batch timings
+     * @throws RuntimeException if the transaction fails; nothing is written
+     */
+    public BatchResult createAll(Collection<? extends E> entities, int batchSize) {
+        return inBatches("createAll", entities, batchSize, EntityManager::persist);
+    }
+
+    /**
+     * Merges all the given detached entities in a single transaction,
+     * flushing and clearing the persistence context every FLUSH_BATCH
+     * entities.
+     *
+     * @param entities the modified entities
+     * @return the count and per-batch timings
+     * @throws RuntimeException if the transaction fails; nothing is written
+     */
+    public BatchResult updateAll(Collection<? extends E> entities) {
+        return updateAll(entities, FLUSH_BATCH);
+    }
+
+    /**
+     * Merges all the given detached entities in a single transaction,
+     * flushing and clearing the persistence context every batchSize entities.
+     *
+     * @param entities  the modified entities
+     * @param batchSize the entities written between two flushes, positive
+     * @return the count and per-batch timings
+     * @throws RuntimeException if the transaction fails; nothing is written
+     */
+    public BatchResult updateAll(Collection<? extends E> entities, int batchSize) {
+        return inBatches("updateAll", entities, batchSize, EntityManager::merge);
+    }
+
+    /**
+     * Deletes all the given entities in a single transaction.
+     *
+     * @param entities the entities to remove
+     * @return the count and per-batch timings
+     * @throws RuntimeException if the transaction fails; nothing is deleted
+     */
+    public BatchResult deleteAll(Collection<? extends E> entities) {
+        PersistenceUnitUtil util = JPAUtil.getCurrentFactory().getPersistenceUnitUtil();
+        List<I> ids = new ArrayList<>(entities.size());
+        for (E entity : entities) {
+            @SuppressWarnings("unchecked")
+            I id = (I) util.getIdentifier(entity);
+            ids.add(id);
+        }
+        return deleteAllById(ids);
+    }
+
+    /**
+     * Deletes the entities with the given identifiers in a single
+     * transaction, removing them one by one so that cascades apply, and
+     * flushing and clearing the persistence context every FLUSH_BATCH
+     * entities. Unknown identifiers fail the whole operation.
+     *
+     * Repositories whose aggregates can be removed with bulk statements
+     * override this method.
+     *
+     * @param ids the identifiers of the entities to remove
+     * @return the count and per-batch timings
+     * @throws RuntimeException if the transaction fails; nothing is deleted
+     */
+    public BatchResult deleteAllById(Collection<? extends I> ids) {
+        return inBatches("deleteAll", ids, FLUSH_BATCH,
+                (em, id) -> em.remove(em.getReference(entityClass, id)));
+    }
+
+    /**
+     * Asynchronous findById(...).
+     *
+     * @param id the primary key of the entity to retrieve
+     * @return a future of an Optional containing the found entity
+     */
+    public CompletableFuture<Optional<E>> findByIdAsync(I id) {
+        return PersistenceExecutor.supply(() -> findById(id));
+    }
+
+    /**
+     * Asynchronous findAll().
+     *
+     * @return a future of all persisted entities of this type
+     */
+    public CompletableFuture<List<E>> findAllAsync() {
+        return PersistenceExecutor.supply(this::findAll);
+    }
+
+    /**
+     * Asynchronous findPage(...).
+     *
+     * @param afterId the last identifier of the previous page, or null
+     * @param limit   the maximum number of entities to return, positive
+     * @return a future of the entities of the page, ordered by identifier
+     */
+    public CompletableFuture<List<E>> findPageAsync(I afterId, int limit) {
+        return PersistenceExecutor.supply(() -> findPage(afterId, limit));
+    }
+
+    /**
+     * Asynchronous create(...). The entity must not be used until the
+     * future completes.
+     *
+     * @param entity the entity to be created
+     * @return a future completing once the entity is committed
+     */
+    public CompletableFuture<Void> createAsync(E entity) {
+        return PersistenceExecutor.run(() -> create(entity));
+    }
+
+    /**
+     * Asynchronous update(...).
+     *
+     * @param entity the modified entity to synchronize with the database
+     * @return a future completing once the changes are committed
+     */
+    public CompletableFuture<Void> updateAsync(E entity) {
+        return PersistenceExecutor.run(() -> update(entity));
+    }
+
+    /**
+     * Asynchronous delete(...).
+     *
+     * @param entity the entity to remove
+     * @return a future completing once the removal is committed
+     */
+    public CompletableFuture<Void> deleteAsync(E entity) {
+        return PersistenceExecutor.run(() -> delete(entity));
+    }
+
+    /**
+     * Asynchronous createAll(...). The entities must not be used until the
+     * future completes.
+     *
+     * @param entities the entities to create
+     * @return a future of the count and per-batch timings
+     */
+    public CompletableFuture<BatchResult> createAllAsync(Collection<? extends E> entities) {
+        return PersistenceExecutor.supply(() -> createAll(entities));
+    }
+
+    /**
+     * Asynchronous updateAll(...).
+     *
+     * @param entities the modified entities
+     * @return a future of the count and per-batch timings
+     */
+    public CompletableFuture<BatchResult> updateAllAsync(Collection<? extends E> entities) {
+        return PersistenceExecutor.supply(() -> updateAll(entities));
+    }
+
+    /**
+     * Asynchronous deleteAllById(...).
+     *
+     * @param ids the identifiers of the entities to remove
+     * @return a future of the count and per-batch timings
+     */
+    public CompletableFuture<BatchResult> deleteAllByIdAsync(Collection<? extends I> ids) {
+        return PersistenceExecutor.supply(() -> deleteAllById(ids));
+    }
+
+    /**
+     * Applies the given write to every item in a single transaction,
+     * flushing and clearing the persistence context after every batchSize
+     * items and timing each batch. Within a unit of work, batches are
+     * flushed but the context is not cleared, so that the entities of the
+     * unit stay managed; the last batch is then only flushed with the unit.
+     *
+     * @param <T>       the type of the items
+     * @param operation the operation name reported to Flight Recorder
+     * @param items     the items to write
+     * @param batchSize the items written between two flushes, positive
+     * @param write     the write applied to each item
+     * @return the count and per-batch timings
+     */
+    protected <T> BatchResult inBatches(String operation, Collection<? extends T> items, int batchSize,
+            BiConsumer<EntityManager, T> write) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        PersistenceEvents.RepositoryOperation event = beginOperation(operation);
+        int written = -1;
+        long[] batchNanos = new long[(items.size() + batchSize - 1) / batchSize];
+        boolean clear = !JPAUtil.inUnitOfWork();
+        try {
+            long[] start = {System.nanoTime()};
+            written = JPAUtil.withEntityManager(true, em -> {
+                int n = 0;
+                for (T item : items) {
+                    write.accept(em, item);
+                    if (++n % batchSize == 0) {
+                        em.flush();
+                        if (clear) {
+                            em.clear();
+                        }
+                        long now = System.nanoTime();
+                        batchNanos[n / batchSize - 1] = now - start[0];
+                        start[0] = now;
+                    }
+                }
+                return n;
+            });
+            // the last batch also covers the commit
+            if (batchNanos.length > 0) {
+                batchNanos[batchNanos.length - 1] += System.nanoTime() - start[0];
+            }
+            return new BatchResult(written, batchNanos);
+        } finally {
+            endOperation(event, written);
+        }
+    }
+
+    /**
+     * Starts timing a repository operation for Java Flight Recorder.
+     *
+     * @param operation the name of the operation
+     * @return the begun event, to be passed to endOperation(...)
+     */
+    protected PersistenceEvents.RepositoryOperation beginOperation(String operation) {
+        PersistenceEvents.RepositoryOperation event = new PersistenceEvents.RepositoryOperation();
+        event.operation = operation;
+        event.begin();
+        return event;
+    }
+
+    /**
+     * Commits a repository operation event, if recording is enabled.
+     *
+     * @param event   the event returned by beginOperation(...)
+     * @param results the entities returned or written, -1 if the operation failed
+     */
+    protected void endOperation(PersistenceEvents.RepositoryOperation event, int results) {
+        if (event.shouldCommit()) {
+            EntityMapping current = mapping;
+            event.entity = current != null ? current.entityName() : entityClass.getSimpleName();
+            event.results = Math.max(0, results);
+            event.succeeded = results >= 0;
+            event.commit();
+        }
+    }
+}
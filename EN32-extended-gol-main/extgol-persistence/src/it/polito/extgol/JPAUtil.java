@@ -0,0 +1,317 @@
+package it.polito.extgol;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.EntityTransaction;
+import jakarta.persistence.Persistence;
+
+/**
+ * Utility class for managing the JPA EntityManagerFactory and
+ * providing EntityManager instances for database operations.
+ *
+ * Uses a singleton EntityManagerFactory tied to the persistence unit
+ * "game-of-life-pu" to create short-lived EntityManager instances.
+ *
+ * Any "hibernate.*", "jakarta.persistence.*" or "extgol.*" system property
+ * overrides the setting of the same name in persistence.xml, e.g.
+ * -Dhibernate.show_sql=true, -Dhibernate.generate_statistics=true or
+ * -Dhibernate.connection.pool_size=32.
+ *
+ * Connections come from a PooledConnectionProvider. The factory is created
+ * exactly once even under concurrent first use: threads racing on
+ * getEntityManager() or warmUp() all wait for the same creation.
+ *
+ * While open, the factory is monitored over JMX through a
+ * PersistenceMonitorMBean named it.polito.extgol:type=Persistence.
+ *
+ * Simulations never need the factory: games can be created and run without
+ * loading any Hibernate class, and the factory is only built on the first
+ * call to getEntityManager(). Since bootstrapping Hibernate takes a while,
+ * callers that know they will persist later can start it early in the
+ * background with warmUp() and keep simulating meanwhile.
+ *
+ * By default every repository call and every save uses its own short-lived
+ * EntityManager. To chain several of them on the same entities, run them in
+ * a unit of work with inTransaction(...) or fromTransaction(...): the
+ * EntityManager is then bound to the thread, and the repositories and
+ * GameStore join it instead of opening their own, so entities stay managed
+ * from one call to the next and all changes commit together.
+ */
+public class JPAUtil {
+
+    /** The singleton EntityManagerFactory, being created or ready. */
+    private static volatile CompletableFuture<EntityManagerFactory> emf;
+
+    /** The name of the persistence unit defined in persistence.xml. */
+    private static final String PU_NAME = "game-of-life-pu";
+
+    /**
+     * Hibernate's check of orm.xml against the mapped classes only knows
+     * getter-style properties, and reports every field mapped with field
+     * access but lacking a same-named getter as a possible typo (HHH000207).
+     * Held here so the level survives garbage collection of the logger.
+     */
+    private static final Logger ORM_XML_CHECK =
+            Logger.getLogger("org.hibernate.boot.model.internal.JPAXMLOverriddenAnnotationReader");
+
+    /** The EntityManager of the unit of work running on each thread, if any. */
+    private static final ThreadLocal<EntityManager> UNIT_OF_WORK = new ThreadLocal<>();
+
+    private JPAUtil() {} // utility class need not to be instantiated
+    
+    /**
+     * Lazily initializes (if necessary) and returns the shared EntityManagerFactory.
+     * Waits for a creation already started by warmUp().
+     *
+     * @return the open EntityManagerFactory for the configured persistence unit
+     */
+    static EntityManagerFactory getCurrentFactory() {
+        CompletableFuture<EntityManagerFactory> current = emf;
+        if (current == null || isClosed(current)) {
+            current = start(false);
+        }
+        try {
+            return current.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Starts building the shared EntityManagerFactory on a background thread
+     * and returns at once. Later calls to getEntityManager() wait for that
+     * creation instead of starting their own. Does nothing if the factory is
+     * already open or being created.
+     *
+     * @return a future completing when the factory is ready, exceptionally
+     *         if it could not be created
+     */
+    public static CompletableFuture<Void> warmUp() {
+        CompletableFuture<EntityManagerFactory> current = emf;
+        if (current == null || isClosed(current)) {
+            current = start(true);
+        }
+        return current.thenApply(f -> null);
+    }
+
+    /**
+     * Creates the factory, unless another thread got there first. A failed
+     * creation is forgotten so that the next call can try again.
+     *
+     * @param background whether to build on a new daemon thread rather than
+     *                   on the calling one
+     * @return the future of the shared factory
+     */
+    private static synchronized CompletableFuture<EntityManagerFactory> start(boolean background) {
+        CompletableFuture<EntityManagerFactory> current = emf;
+        if (current != null && !current.isCompletedExceptionally() && !isClosed(current)) {
+            return current;
+        }
+        CompletableFuture<EntityManagerFactory> created = new CompletableFuture<>();
+        emf = created;
+        ORM_XML_CHECK.setLevel(Level.SEVERE);
+        Runnable build = () -> {
+            try {
+                EntityManagerFactory factory = Persistence.createEntityManagerFactory(PU_NAME, overrides());
+                PersistenceMonitor.register(factory);
+                created.complete(factory);
+            } catch (RuntimeException | Error e) {
+                // fail the waiters first: close() may hold the lock while it waits
+                created.completeExceptionally(e);
+                synchronized (JPAUtil.class) {
+                    if (emf == created) {
+                        emf = null;
+                    }
+                }
+            }
+        };
+        if (background) {
+            Thread builder = new Thread(build, "extgol-jpa-warmup");
+            builder.setDaemon(true);
+            builder.start();
+        } else {
+            build.run();
+        }
+        return created;
+    }
+
+    /**
+     * Tells whether a completed factory future holds a closed factory.
+     */
+    private static boolean isClosed(CompletableFuture<EntityManagerFactory> future) {
+        return future.isDone() && !future.isCompletedExceptionally() && !future.join().isOpen();
+    }
+
+    /**
+     * Collects the persistence settings overridden through system properties.
+     *
+     * @return a Map of property names to values, possibly empty
+     */
+    private static Map<String, Object> overrides() {
+        Map<String, Object> props = new HashMap<>();
+        for (String name : System.getProperties().stringPropertyNames()) {
+            if (name.startsWith("hibernate.") || name.startsWith("jakarta.persistence.")
+                    || name.startsWith("extgol.")) {
+                props.put(name, System.getProperty(name));
+            }
+        }
+        return props;
+    }
+
+    /**
+     * Tells whether the shared EntityManagerFactory has been created and is
+     * still open, without creating it.
+     *
+     * @return true if the factory is open
+     */
+    public static boolean isInitialized() {
+        CompletableFuture<EntityManagerFactory> current = emf;
+        return current != null && current.isDone() && !current.isCompletedExceptionally()
+                && current.join().isOpen();
+    }
+
+    /**
+     * Creates and returns a new EntityManager from the shared factory.
+     *
+     * Clients should obtain an EntityManager using this method, use it for
+     * transactions or queries, and then close it when done.
+     *
+     * @return a new EntityManager instance
+     */
+    public static EntityManager getEntityManager() {
+        return getCurrentFactory().createEntityManager();
+    }
+
+    /**
+     * Runs the given work as a unit of work: one EntityManager and one
+     * transaction, shared with every repository call and save made by the
+     * work on this thread.
+     *
+     * The transaction commits when the work returns and rolls back if it
+     * throws. Called within another unit of work, the work simply joins it,
+     * and an exception marks the outer transaction for rollback.
+     *
+     * @param work the work to run
+     * @throws RuntimeException if the work or the commit fails
+     */
+    public static void inTransaction(Consumer<EntityManager> work) {
+        fromTransaction(em -> {
+            work.accept(em);
+            return null;
+        });
+    }
+
+    /**
+     * Runs the given work as a unit of work, like inTransaction(...), and
+     * returns its result.
+     *
+     * Entities returned stay usable after the commit, but are detached: lazy
+     * associations not navigated within the work can no longer be loaded.
+     *
+     * @param <R>  the result type
+     * @param work the work to run
+     * @return the result of the work
+     * @throws RuntimeException if the work or the commit fails
+     */
+    public static <R> R fromTransaction(Function<EntityManager, R> work) {
+        EntityManager current = UNIT_OF_WORK.get();
+        if (current != null) {
+            try {
+                return work.apply(current);
+            } catch (RuntimeException | Error e) {
+                current.getTransaction().setRollbackOnly();
+                throw e;
+            }
+        }
+        EntityManager em = getEntityManager();
+        EntityTransaction tx = em.getTransaction();
+        UNIT_OF_WORK.set(em);
+        try {
+            tx.begin();
+            R result = work.apply(em);
+            tx.commit();
+            return result;
+        } finally {
+            UNIT_OF_WORK.remove();
+            if (tx.isActive()) {
+                tx.rollback();
+            }
+            em.close();
+        }
+    }
+
+    /**
+     * Tells whether a unit of work is running on the current thread.
+     *
+     * @return true within inTransaction(...) or fromTransaction(...)
+     */
+    public static boolean inUnitOfWork() {
+        return UNIT_OF_WORK.get() != null;
+    }
+
+    /**
+     * Runs a single repository or store operation: within the unit of work
+     * of the current thread if there is one, otherwise with a new
+     * EntityManager, closed afterwards, and in a transaction of its own if
+     * the operation writes.
+     *
+     * @param <R>           the result type
+     * @param transactional whether the operation needs a transaction
+     * @param work          the operation
+     * @return the result of the operation
+     * @throws RuntimeException if the operation or its commit fails
+     */
+    static <R> R withEntityManager(boolean transactional, Function<EntityManager, R> work) {
+        EntityManager current = UNIT_OF_WORK.get();
+        if (current != null) {
+            return work.apply(current);
+        }
+        if (transactional) {
+            return fromTransaction(work);
+        }
+        EntityManager em = getEntityManager();
+        try {
+            return work.apply(em);
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Closes the shared EntityManagerFactory if it is open.
+     *
+     * Should be invoked during application shutdown to release resources.
+     * Waits for a creation in progress, without holding the lock that the
+     * creating thread needs.
+     */
+    public static void close() {
+        CompletableFuture<EntityManagerFactory> current;
+        synchronized (JPAUtil.class) {
+            current = emf;
+        }
+        if (current == null) {
+            return;
+        }
+        try {
+            EntityManagerFactory factory = current.join();
+            if (factory.isOpen()) {
+                PersistenceMonitor.unregister();
+                factory.close();
+            }
+        } catch (CompletionException e) {
+            // the factory was never created: nothing to release
+        }
+    }
+}
\ No newline at end of file
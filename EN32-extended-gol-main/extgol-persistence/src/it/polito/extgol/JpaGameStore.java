@@ -0,0 +1,67 @@
+package it.polito.extgol;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * GameStore backed by JPA, registered through
+ * META-INF/services/it.polito.extgol.GameStore so that
+ * ExtendedGameOfLife.saveGame(...) finds it whenever this module is on the
+ * classpath.
+ */
+public class JpaGameStore implements GameStore {
+
+    /**
+     * Persists a new game, or merges an already saved one, in a single
+     * transaction rolled back on failure. Within a unit of work the save
+     * joins the unit instead, and a game already managed by it needs no
+     * merge: its changes are flushed when the unit commits.
+     *
+     * @param game the Game to save
+     * @throws RuntimeException if the transaction fails
+     */
+    @Override
+    public void save(Game game) {
+        PersistenceEvents.GameSaved event = new PersistenceEvents.GameSaved();
+        event.begin();
+        try {
+            JPAUtil.withEntityManager(true, em -> {
+                if (game.getId() == null) {
+                    em.persist(game);
+                } else if (!em.contains(game)) {
+                    em.merge(game);
+                }
+                return null;
+            });
+            event.succeeded = true;
+        } finally {
+            if (event.shouldCommit()) {
+                event.gameId = JfrEvents.idOf(game);
+                event.generations = PersistenceEvents.generationsOf(game);
+                event.rows = PersistenceEvents.rowsOf(game);
+                event.commit();
+            }
+        }
+    }
+
+    /**
+     * Runs save(...) on the persistence executor, at most one save per
+     * pooled connection at a time.
+     *
+     * @param game the Game to save
+     * @return a future completing once the game is committed
+     */
+    @Override
+    public CompletableFuture<Void> saveAsync(Game game) {
+        return PersistenceExecutor.run(() -> save(game));
+    }
+
+    /**
+     * Builds the EntityManagerFactory in the background.
+     *
+     * @return the future of JPAUtil.warmUp()
+     */
+    @Override
+    public CompletableFuture<Void> warmUp() {
+        return JPAUtil.warmUp();
+    }
+}
@@ -0,0 +1,57 @@
+package it.polito.extgol;
+
+/**
+ * How much of a stored Game GameRepository.load(...) fetches, for the use
+ * cases that need less than the whole aggregate.
+ *
+ * Each profile names a fetch graph of orm.xml and costs a fixed number of
+ * queries whatever the size of the game. Whatever a profile leaves out stays
+ * unloaded and throws LazyInitializationException if touched once the game
+ * is detached.
+ */
+public enum LoadProfile {
+
+    /**
+     * Name, board dimensions and event schedule: one query.
+     */
+    HEADER("Game.header", History.NONE),
+
+    /**
+     * The header plus every tile with its life point modifier, neighbors
+     * linked: one query. Cells are not loaded.
+     */
+    TOPOLOGY("Game.topology", History.NONE),
+
+    /**
+     * The topology plus every cell, and the list of generations with the
+     * aliveness and energy maps of the last one only: four queries.
+     */
+    CURRENT_STATE("Game.cells", History.LAST),
+
+    /**
+     * The whole aggregate, maps of every generation included: four queries.
+     */
+    FULL_HISTORY("Game.cells", History.ALL);
+
+    /** The generations whose maps a profile loads. */
+    enum History { NONE, LAST, ALL }
+
+    private final String graph;
+    private final History history;
+
+    LoadProfile(String graph, History history) {
+        this.graph = graph;
+        this.history = history;
+    }
+
+    /**
+     * @return the name of the fetch graph declared in orm.xml
+     */
+    public String getGraph() {
+        return graph;
+    }
+
+    History getHistory() {
+        return history;
+    }
+}
@@ -0,0 +1,126 @@
+package it.polito.extgol;
+
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceUtil;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Java Flight Recorder events emitted by the persistence layer, next to the
+ * simulation events of JfrEvents and following the same conventions: timed,
+ * in the "Extended Game of Life" category, with payloads only computed when
+ * shouldCommit() holds.
+ */
+final class PersistenceEvents {
+
+    private PersistenceEvents() {} // event holder only
+
+    @Name("it.polito.extgol.GameSaved")
+    @Label("Game Saved")
+    @Category({"Extended Game of Life", "Persistence"})
+    @Description("A whole game persisted or merged by saveGame")
+    static final class GameSaved extends Event {
+        @Label("Game Id")
+        long gameId;
+
+        @Label("Generations")
+        @Description("-1 if the generations of the game were never loaded")
+        int generations;
+
+        @Label("Rows")
+        @Description("Entity and collection rows making up the saved game, -1 if part of it was never loaded")
+        long rows;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    @Name("it.polito.extgol.GameLoaded")
+    @Label("Game Loaded")
+    @Category({"Extended Game of Life", "Persistence"})
+    @Description("A game read back by GameRepository.load")
+    static final class GameLoaded extends Event {
+        @Label("Game Id")
+        long gameId;
+
+        @Label("Profile")
+        @Description("The LoadProfile; generations and rows are only counted for FULL_HISTORY")
+        String profile;
+
+        @Label("Generations")
+        int generations;
+
+        @Label("Rows")
+        @Description("Entity and collection rows making up the loaded game")
+        long rows;
+
+        @Label("Found")
+        boolean found;
+    }
+
+    @Name("it.polito.extgol.RepositoryOperation")
+    @Label("Repository Operation")
+    @Category({"Extended Game of Life", "Persistence"})
+    @Description("A CRUD operation of GenericExtGOLRepository")
+    static final class RepositoryOperation extends Event {
+        @Label("Entity")
+        String entity;
+
+        @Label("Operation")
+        String operation;
+
+        @Label("Results")
+        @Description("Entities returned or written")
+        int results;
+
+        @Label("Succeeded")
+        boolean succeeded;
+    }
+
+    /**
+     * Counts the generations of a game.
+     *
+     * @return the number of generations, or -1 if they were never loaded
+     */
+    static int generationsOf(Game game) {
+        return Persistence.getPersistenceUtil().isLoaded(game, "generations")
+                ? game.getGenerations().size() : -1;
+    }
+
+    /**
+     * Counts the database rows a game maps to: the game and its board, one
+     * row per tile, cell, generation and scheduled event, plus one aliveness
+     * and one energy row per cell recorded in each generation.
+     *
+     * Parts of a detached game that were never loaded, such as those left
+     * out by a LoadProfile, cannot be counted without a LazyInitializationException,
+     * so the count is then skipped.
+     *
+     * @return the number of rows, or -1 if part of the game was never loaded
+     */
+    static long rowsOf(Game game) {
+        PersistenceUtil util = Persistence.getPersistenceUtil();
+        if (!util.isLoaded(game, "board") || !util.isLoaded(game, "generations")) {
+            return -1;
+        }
+        Board board = game.getBoard();
+        if (board != null && !util.isLoaded(board, "tiles")) {
+            return -1;
+        }
+        long tiles = board != null ? board.getTiles().size() : 0;
+        long rows = 2 + 2 * tiles + game.getEventMapInternal().size();
+        for (Generation gen : game.getGenerations()) {
+            if (gen == null) {
+                continue;
+            }
+            if (!util.isLoaded(gen, "cellAlivenessStates") || !util.isLoaded(gen, "cellEnergyStates")) {
+                return -1;
+            }
+            rows += 1 + gen.stateRowCount();
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,169 @@
+package it.polito.extgol;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Runs the asynchronous repository and store operations, such as
+ * GenericExtGOLRepository.findByIdAsync(...) or JpaGameStore.saveAsync(...).
+ *
+ * On Java 21 and later every task gets a virtual thread of its own, and a
+ * semaphore lets at most as many tasks as the connection pool has
+ * connections run at once; the others wait for a permit on their virtual
+ * thread rather than for a connection inside Hibernate, where they would
+ * time out after extgol.connection.timeout seconds. On older JVMs tasks
+ * queue for a fixed pool of daemon threads, as many as the connection pool
+ * has connections, so that waiting tasks hold no platform thread.
+ *
+ * Tasks run outside any unit of work of the submitting thread.
+ */
+final class PersistenceExecutor {
+
+    private static final int DEFAULT_PERMITS = 10;
+
+    /** Virtual threads, or null if the JVM has none. */
+    private static final ExecutorService VIRTUAL_THREADS = newVirtualThreads();
+
+    /** The fixed pool used without virtual threads, or null. */
+    private static final ThreadPoolExecutor POOL = VIRTUAL_THREADS == null ? newPool() : null;
+
+    /** The pool size of the current factory, replaced when it is rebuilt. */
+    private static volatile Gate gate;
+
+    private record Gate(EntityManagerFactory factory, int size, Semaphore permits) {}
+
+    private PersistenceExecutor() {} // utility class need not to be instantiated
+
+    /**
+     * Runs the given work asynchronously.
+     *
+     * @param <R>  the result type
+     * @param work the repository or store operation
+     * @return a future completing with the result of the work, or
+     *         exceptionally with its exception
+     */
+    static <R> CompletableFuture<R> supply(Supplier<R> work) {
+        if (VIRTUAL_THREADS == null) {
+            return CompletableFuture.supplyAsync(() -> {
+                resizePool(gate().size());
+                return work.get();
+            }, POOL);
+        }
+        return CompletableFuture.supplyAsync(() -> {
+            Semaphore permits = gate().permits();
+            permits.acquireUninterruptibly();
+            try {
+                return work.get();
+            } finally {
+                permits.release();
+            }
+        }, VIRTUAL_THREADS);
+    }
+
+    /**
+     * Runs the given work asynchronously.
+     *
+     * @param work the repository or store operation
+     * @return a future completing when the work is done
+     */
+    static CompletableFuture<Void> run(Runnable work) {
+        return supply(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Returns the gate of the current factory, creating the factory if
+     * needed, with as many permits as its pool has connections.
+     */
+    private static Gate gate() {
+        EntityManagerFactory factory = JPAUtil.getCurrentFactory();
+        Gate current = gate;
+        if (current == null || current.factory() != factory) {
+            synchronized (PersistenceExecutor.class) {
+                current = gate;
+                if (current == null || current.factory() != factory) {
+                    int size = poolSize(factory);
+                    current = new Gate(factory, size, new Semaphore(size));
+                    gate = current;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Matches the thread pool to the connection pool of the current factory;
+     * until the factory exists it runs DEFAULT_PERMITS threads.
+     */
+    private static void resizePool(int size) {
+        if (POOL.getMaximumPoolSize() == size) {
+            return;
+        }
+        synchronized (POOL) {
+            // the core size may never exceed the maximum
+            if (size > POOL.getMaximumPoolSize()) {
+                POOL.setMaximumPoolSize(size);
+                POOL.setCorePoolSize(size);
+            } else if (size < POOL.getMaximumPoolSize()) {
+                POOL.setCorePoolSize(size);
+                POOL.setMaximumPoolSize(size);
+            }
+        }
+    }
+
+    private static int poolSize(EntityManagerFactory factory) {
+        SessionFactoryImplementor sessionFactory = factory.unwrap(SessionFactoryImplementor.class);
+        ConnectionProvider provider = sessionFactory.getServiceRegistry().getService(ConnectionProvider.class);
+        if (provider != null && provider.isUnwrappableAs(PooledConnectionProvider.class)) {
+            return provider.unwrap(PooledConnectionProvider.class).getMaxConnections();
+        }
+        Object size = factory.getProperties().get(AvailableSettings.POOL_SIZE);
+        return size != null ? Integer.parseInt(size.toString().trim()) : DEFAULT_PERMITS;
+    }
+
+    /**
+     * Creates a virtual-thread-per-task executor if the JVM supports it.
+     *
+     * @return the executor, or null before Java 21
+     */
+    private static ExecutorService newVirtualThreads() {
+        try {
+            Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) virtual.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Creates a fixed pool of daemon threads over an unbounded queue, whose
+     * idle threads end after a minute.
+     */
+    private static ThreadPoolExecutor newPool() {
+        AtomicInteger count = new AtomicInteger();
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(DEFAULT_PERMITS, DEFAULT_PERMITS,
+                1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(), task -> {
+                    Thread thread = new Thread(task, "extgol-io-" + count.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
@@ -0,0 +1,211 @@
+package it.polito.extgol;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceException;
+
+/**
+ * PersistenceMonitorMBean backed by the Hibernate Statistics of one
+ * EntityManagerFactory.
+ */
+final class PersistenceMonitor implements PersistenceMonitorMBean {
+
+    private static final String NAME = SimulationControl.DOMAIN + ":type=Persistence";
+
+    private final SessionFactoryImplementor factory;
+
+    private final Statistics stats;
+
+    /** The connection pool, or null if another provider is configured. */
+    private final PooledConnectionProvider pool;
+
+    private PersistenceMonitor(SessionFactoryImplementor factory, PooledConnectionProvider pool) {
+        this.factory = factory;
+        this.stats = factory.getStatistics();
+        this.pool = pool;
+    }
+
+    /**
+     * Exposes the given factory over JMX, replacing the MBean of a previous
+     * factory. Registration is best-effort and never fails the caller.
+     *
+     * @param emf the newly created EntityManagerFactory
+     */
+    static void register(EntityManagerFactory emf) {
+        try {
+            SessionFactoryImplementor factory = emf.unwrap(SessionFactoryImplementor.class);
+            ConnectionProvider provider = factory.getServiceRegistry().getService(ConnectionProvider.class);
+            PooledConnectionProvider pool = provider != null && provider.isUnwrappableAs(PooledConnectionProvider.class)
+                    ? provider.unwrap(PooledConnectionProvider.class)
+                    : null;
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(new PersistenceMonitor(factory, pool), name);
+        } catch (JMException | SecurityException | PersistenceException e) {
+            // management is best-effort
+        }
+    }
+
+    /**
+     * Removes the MBean, if registered.
+     */
+    static void unregister() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException | SecurityException e) {
+            // already gone
+        }
+    }
+
+    @Override
+    public boolean isStatisticsEnabled() {
+        return stats.isStatisticsEnabled();
+    }
+
+    @Override
+    public void setStatisticsEnabled(boolean enabled) {
+        stats.setStatisticsEnabled(enabled);
+    }
+
+    @Override
+    public long getOpenEntityManagers() {
+        return stats.getSessionOpenCount() - stats.getSessionCloseCount();
+    }
+
+    @Override
+    public long getEntityManagersOpened() {
+        return stats.getSessionOpenCount();
+    }
+
+    @Override
+    public long getTransactionCount() {
+        return stats.getTransactionCount();
+    }
+
+    @Override
+    public long getPrepareStatementCount() {
+        return stats.getPrepareStatementCount();
+    }
+
+    @Override
+    public long getQueryExecutionCount() {
+        return stats.getQueryExecutionCount();
+    }
+
+    @Override
+    public long getQueryExecutionMaxTime() {
+        return stats.getQueryExecutionMaxTime();
+    }
+
+    @Override
+    public String getQueryExecutionMaxTimeQueryString() {
+        return stats.getQueryExecutionMaxTimeQueryString();
+    }
+
+    @Override
+    public long getEntityLoadCount() {
+        return stats.getEntityLoadCount();
+    }
+
+    @Override
+    public long getEntityInsertCount() {
+        return stats.getEntityInsertCount();
+    }
+
+    @Override
+    public long getEntityUpdateCount() {
+        return stats.getEntityUpdateCount();
+    }
+
+    @Override
+    public long getEntityDeleteCount() {
+        return stats.getEntityDeleteCount();
+    }
+
+    @Override
+    public long getCollectionLoadCount() {
+        return stats.getCollectionLoadCount();
+    }
+
+    @Override
+    public long getFlushCount() {
+        return stats.getFlushCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheHitCount() {
+        return stats.getSecondLevelCacheHitCount();
+    }
+
+    @Override
+    public long getSecondLevelCacheMissCount() {
+        return stats.getSecondLevelCacheMissCount();
+    }
+
+    @Override
+    public long getSecondLevelCachePutCount() {
+        return stats.getSecondLevelCachePutCount();
+    }
+
+    @Override
+    public long getQueryCacheHitCount() {
+        return stats.getQueryCacheHitCount();
+    }
+
+    @Override
+    public long getQueryCacheMissCount() {
+        return stats.getQueryCacheMissCount();
+    }
+
+    @Override
+    public String[] getCacheRegionNames() {
+        return stats.getSecondLevelCacheRegionNames();
+    }
+
+    @Override
+    public String describeCacheRegion(String region) {
+        CacheRegionStatistics r = stats.getCacheRegionStatistics(region);
+        if (r == null) {
+            return null;
+        }
+        return String.format("hits=%d, misses=%d, puts=%d, entries=%d",
+                r.getHitCount(), r.getMissCount(), r.getPutCount(), r.getElementCountInMemory());
+    }
+
+    @Override
+    public void evictCaches() {
+        factory.getCache().evictAll();
+    }
+
+    @Override
+    public int getActiveConnections() {
+        return pool != null ? pool.getActiveConnections() : -1;
+    }
+
+    @Override
+    public int getMaxConnections() {
+        return pool != null ? pool.getMaxConnections() : -1;
+    }
+
+    @Override
+    public void clearStatistics() {
+        stats.clear();
+    }
+}
@@ -0,0 +1,150 @@
+package it.polito.extgol;
+
+/**
+ * JMX management interface of the shared EntityManagerFactory, registered
+ * by JPAUtil under it.polito.extgol:type=Persistence while the factory is
+ * open.
+ *
+ * Counters come from Hibernate statistics and stay at zero until statistics
+ * are enabled, either here at runtime or with
+ * -Dhibernate.generate_statistics=true. Connection pool figures are always
+ * available.
+ */
+public interface PersistenceMonitorMBean {
+
+    /**
+     * @return true if Hibernate statistics are being collected
+     */
+    boolean isStatisticsEnabled();
+
+    /**
+     * @param enabled whether Hibernate statistics should be collected
+     */
+    void setStatisticsEnabled(boolean enabled);
+
+    /**
+     * @return the EntityManagers opened and not yet closed
+     */
+    long getOpenEntityManagers();
+
+    /**
+     * @return the EntityManagers opened since statistics were last cleared
+     */
+    long getEntityManagersOpened();
+
+    /**
+     * @return the transactions completed
+     */
+    long getTransactionCount();
+
+    /**
+     * @return the JDBC statements prepared
+     */
+    long getPrepareStatementCount();
+
+    /**
+     * @return the JPQL/HQL and native queries executed
+     */
+    long getQueryExecutionCount();
+
+    /**
+     * @return the slowest query execution, in milliseconds
+     */
+    long getQueryExecutionMaxTime();
+
+    /**
+     * @return the slowest query itself
+     */
+    String getQueryExecutionMaxTimeQueryString();
+
+    /**
+     * @return the entities loaded
+     */
+    long getEntityLoadCount();
+
+    /**
+     * @return the entities inserted
+     */
+    long getEntityInsertCount();
+
+    /**
+     * @return the entities updated
+     */
+    long getEntityUpdateCount();
+
+    /**
+     * @return the entities deleted
+     */
+    long getEntityDeleteCount();
+
+    /**
+     * @return the collections loaded
+     */
+    long getCollectionLoadCount();
+
+    /**
+     * @return the flushes performed
+     */
+    long getFlushCount();
+
+    /**
+     * @return the second-level cache hits
+     */
+    long getSecondLevelCacheHitCount();
+
+    /**
+     * @return the second-level cache misses
+     */
+    long getSecondLevelCacheMissCount();
+
+    /**
+     * @return the second-level cache entries stored
+     */
+    long getSecondLevelCachePutCount();
+
+    /**
+     * @return the query results served from the query cache
+     */
+    long getQueryCacheHitCount();
+
+    /**
+     * @return the cacheable queries not found in the query cache
+     */
+    long getQueryCacheMissCount();
+
+    /**
+     * @return the names of the second-level cache regions, as declared in
+     *         ehcache.xml
+     */
+    String[] getCacheRegionNames();
+
+    /**
+     * Summarizes the hits, misses, puts and current size of one cache region.
+     *
+     * @param region a name from getCacheRegionNames()
+     * @return the summary, or null if there is no such region
+     */
+    String describeCacheRegion(String region);
+
+    /**
+     * Empties every second-level cache region and the query cache.
+     */
+    void evictCaches();
+
+    /**
+     * @return the pooled JDBC connections currently in use, or -1 if
+     *         connections are not pooled
+     */
+    int getActiveConnections();
+
+    /**
+     * @return the maximum number of pooled JDBC connections, or -1 if
+     *         connections are not pooled
+     */
+    int getMaxConnections();
+
+    /**
+     * Resets every counter.
+     */
+    void clearStatistics();
+}
@@ -0,0 +1,147 @@
+package it.polito.extgol;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+import java.util.Map;
+
+import org.h2.jdbcx.JdbcConnectionPool;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.jdbc.connections.spi.ConnectionProvider;
+import org.hibernate.service.UnknownUnwrapTypeException;
+import org.hibernate.service.spi.Configurable;
+import org.hibernate.service.spi.Stoppable;
+
+/**
+ * Hibernate ConnectionProvider handing out connections from an H2
+ * JdbcConnectionPool, selected in persistence.xml through
+ * hibernate.connection.provider_class.
+ *
+ * Connections are opened once and reused, so concurrent workers saving or
+ * loading games do not pay for a new H2 session each time. When all
+ * connections are busy, a caller waits up to the login timeout for one to be
+ * returned. Every pooled session also keeps its own cache of parsed
+ * statements, so the same SQL prepared again skips parsing and planning.
+ *
+ * The connection is configured by the jakarta.persistence.jdbc.url, user and
+ * password settings; the deprecated hibernate.connection ones are ignored.
+ *
+ * Settings, all optional:
+ * - hibernate.connection.pool_size: the maximum number of open connections
+ *   (default 10)
+ * - extgol.connection.timeout: seconds to wait for a free connection
+ *   (default 30)
+ * - extgol.connection.statement_cache_size: parsed statements cached per
+ *   connection (default 64), set as H2's QUERY_CACHE_SIZE unless the URL
+ *   already sets it
+ */
+public class PooledConnectionProvider implements ConnectionProvider, Configurable, Stoppable {
+
+    private static final long serialVersionUID = 1L;
+
+    /** Setting holding the seconds to wait for a free connection. */
+    public static final String TIMEOUT = "extgol.connection.timeout";
+
+    /** Setting holding the number of statements cached per connection. */
+    public static final String STATEMENT_CACHE_SIZE = "extgol.connection.statement_cache_size";
+
+    private static final int DEFAULT_POOL_SIZE = 10;
+    private static final int DEFAULT_TIMEOUT = 30;
+    private static final int DEFAULT_STATEMENT_CACHE_SIZE = 64;
+
+    private transient JdbcConnectionPool pool;
+
+    @Override
+    public void configure(Map<String, Object> settings) {
+        String url = setting(settings, AvailableSettings.JAKARTA_JDBC_URL);
+        if (url == null) {
+            throw new IllegalArgumentException("No JDBC URL configured for the connection pool");
+        }
+        int cacheSize = intSetting(settings, STATEMENT_CACHE_SIZE, DEFAULT_STATEMENT_CACHE_SIZE);
+        if (!url.toUpperCase(Locale.ROOT).contains(";QUERY_CACHE_SIZE=")) {
+            url += ";QUERY_CACHE_SIZE=" + cacheSize;
+        }
+        String user = setting(settings, AvailableSettings.JAKARTA_JDBC_USER);
+        String password = setting(settings, AvailableSettings.JAKARTA_JDBC_PASSWORD);
+
+        pool = JdbcConnectionPool.create(url, user == null ? "" : user, password == null ? "" : password);
+        pool.setMaxConnections(intSetting(settings, AvailableSettings.POOL_SIZE, DEFAULT_POOL_SIZE));
+        pool.setLoginTimeout(intSetting(settings, TIMEOUT, DEFAULT_TIMEOUT));
+    }
+
+    private static String setting(Map<String, Object> settings, String name) {
+        Object value = settings.get(name);
+        return value == null ? null : value.toString();
+    }
+
+    private static int intSetting(Map<String, Object> settings, String name, int defaultValue) {
+        Object value = settings.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        int n = Integer.parseInt(value.toString().trim());
+        if (n < 1) {
+            throw new IllegalArgumentException(name + " must be positive: " + n);
+        }
+        return n;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return pool.getConnection();
+    }
+
+    /**
+     * Returns the connection to the pool.
+     */
+    @Override
+    public void closeConnection(Connection conn) throws SQLException {
+        conn.close();
+    }
+
+    /**
+     * @return the connections currently handed out
+     */
+    public int getActiveConnections() {
+        return pool.getActiveConnections();
+    }
+
+    /**
+     * @return the maximum number of open connections
+     */
+    public int getMaxConnections() {
+        return pool.getMaxConnections();
+    }
+
+    /**
+     * Closes every idle connection; connections still in use are closed
+     * when returned.
+     */
+    @Override
+    public void stop() {
+        if (pool != null) {
+            pool.dispose();
+        }
+    }
+
+    @Override
+    public boolean supportsAggressiveRelease() {
+        return false;
+    }
+
+    @Override
+    public boolean isUnwrappableAs(Class<?> unwrapType) {
+        return unwrapType.isInstance(this) || unwrapType.isInstance(pool);
+    }
+
+    @Override
+    public <T> T unwrap(Class<T> unwrapType) {
+        if (unwrapType.isInstance(this)) {
+            return unwrapType.cast(this);
+        }
+        if (unwrapType.isInstance(pool)) {
+            return unwrapType.cast(pool);
+        }
+        throw new UnknownUnwrapTypeException(unwrapType);
+    }
+}
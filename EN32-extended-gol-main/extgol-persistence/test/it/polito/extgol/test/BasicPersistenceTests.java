@@ -0,0 +1,104 @@
+package it.polito.extgol.test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.hibernate.engine.spi.ManagedEntity;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.Board;
+import it.polito.extgol.Cell;
+import it.polito.extgol.Coord;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.GameRepository;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+/**
+ * JUnit test suite for how the basic GOL starts up the persistence layer
+ * 
+ */
+public class BasicPersistenceTests {
+
+    private ExtendedGameOfLife facade;
+    private Game game;
+    private Board board;
+
+    /**
+     * Set up a fresh database and game before each test.
+     */
+    @Before
+    public void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        facade = new ExtendedGameOfLife();
+        game  = Game.create("TestGame", 3, 3);
+        board = game.getBoard();
+    }
+     
+    /**
+     * Close JPA resources after all tests.
+     */
+    @AfterClass
+    public static void closeDB(){
+        JPAUtil.close();
+    }
+
+    /**
+     * Simulation-only program run in a separate JVM by
+     * testSimulationDoesNotBootstrapHibernate.
+     */
+    public static class SimulationOnly {
+        public static void main(String[] args) {
+            Game g = Game.create("FastStart", 8, 8);
+            Generation.createInitial(g, g.getBoard(), List.of(new Coord(1, 2), new Coord(2, 2), new Coord(3, 2)));
+            new ExtendedGameOfLife().run(g, 10);
+            System.out.println(g.getBoard().visualize(g.getGenerations().get(10)));
+        }
+    }
+
+    @Test
+    public void testSimulationDoesNotBootstrapHibernate() throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-Xlog:class+load=info",
+                "-cp", System.getProperty("java.class.path"), SimulationOnly.class.getName())
+            .redirectErrorStream(true)
+            .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8);
+        assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+        assertEquals(output, 0, process.exitValue());
+        assertTrue("Simulation should have run", output.contains("it.polito.extgol.ExtendedGameOfLife"));
+        if (ManagedEntity.class.isAssignableFrom(Cell.class)) {
+            // classes enhanced by the enhance profile load their Hibernate trackers
+            assertFalse("Simulation should not bootstrap Hibernate", output.contains("org.hibernate.boot."));
+        } else {
+            assertFalse("Simulation should not load Hibernate", output.contains("org.hibernate."));
+        }
+        assertFalse("Simulation should not create the EntityManagerFactory", output.contains("it.polito.extgol.JPAUtil"));
+    }
+
+    @Test
+    public void testPersistenceWarmUp() throws Exception {
+        JPAUtil.close();
+        GameRepository repository = new GameRepository();
+        assertFalse("Creating a repository should not start Hibernate", JPAUtil.isInitialized());
+
+        CompletableFuture<Void> ready = JPAUtil.warmUp();
+        // simulating meanwhile needs no persistence
+        Generation.createInitial(game, board, List.of(new Coord(0, 1), new Coord(1, 1), new Coord(2, 1)));
+        facade.run(game, 2);
+
+        ready.get(60, TimeUnit.SECONDS);
+        assertTrue(JPAUtil.isInitialized());
+        facade.saveGame(game);
+        assertTrue(game.getId() != null);
+        assertTrue(repository.findById(game.getId()).isPresent());
+    }
+}
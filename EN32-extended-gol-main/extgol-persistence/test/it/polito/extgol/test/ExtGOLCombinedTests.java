@@ -1,12 +1,18 @@
 package it.polito.extgol.test;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 import org.junit.AfterClass;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import it.polito.extgol.Board;
 import it.polito.extgol.Cell;
@@ -16,9 +22,13 @@ import it.polito.extgol.Coord;
 import it.polito.extgol.EventType;
 import it.polito.extgol.ExtendedGameOfLife;
 import it.polito.extgol.Game;
+import it.polito.extgol.GameRepository;
 import it.polito.extgol.Generation;
 import it.polito.extgol.JPAUtil;
 import jakarta.persistence.EntityManager;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
 
 import static it.polito.extgol.test.TestBranchUtils.assumeBranch;
 
@@ -32,6 +42,9 @@ public class ExtGOLCombinedTests {
     private Game game;
     private Board board;
 
+    @Rule
+    public TemporaryFolder frames = new TemporaryFolder();
+
     /**
      * Set up a fresh database and game before each test.
      */
@@ -235,4 +248,47 @@ public class ExtGOLCombinedTests {
         assertEquals(EventType.BLOOM,  loaded.get(2));
         assertEquals(EventType.FAMINE, loaded.get(5));
     }
+
+    @Test
+    public void testR1R2FlightRecorderEvents() throws IOException {
+        assumeBranch("r1", "r2");
+        Generation.createInitial(game, board, List.of(new Coord(1, 1), new Coord(2, 1), new Coord(3, 1)));
+        Path dump = frames.getRoot().toPath().resolve("run.jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("it.polito.extgol.GenerationEvolved");
+            recording.enable("it.polito.extgol.EventApplied");
+            recording.enable("it.polito.extgol.GameSaved");
+            recording.enable("it.polito.extgol.RepositoryOperation");
+            recording.start();
+            facade.run(game, 2, Map.of(0, EventType.BLOOM));
+            facade.saveGame(game);
+            new GameRepository().findById(game.getId());
+            recording.stop();
+            recording.dump(dump);
+        }
+
+        Map<String, List<RecordedEvent>> events = RecordingFile.readAllEvents(dump).stream()
+            .collect(Collectors.groupingBy(e -> e.getEventType().getName()));
+
+        List<RecordedEvent> steps = events.get("it.polito.extgol.GenerationEvolved");
+        assertEquals(2, steps.size());
+        assertEquals(1, steps.get(0).getInt("step"));
+        assertEquals(3, steps.get(0).getInt("population"));
+        assertEquals(4, steps.get(0).getInt("churn"));
+
+        RecordedEvent bloom = events.get("it.polito.extgol.EventApplied").get(0);
+        assertEquals("BLOOM", bloom.getString("eventType"));
+        assertEquals(20, bloom.getInt("affectedCells"));
+
+        RecordedEvent saved = events.get("it.polito.extgol.GameSaved").get(0);
+        assertEquals(game.getId().longValue(), saved.getLong("gameId"));
+        assertTrue(saved.getBoolean("succeeded"));
+        assertTrue(saved.getLong("rows") > 2 * 20);
+
+        RecordedEvent find = events.get("it.polito.extgol.RepositoryOperation").get(0);
+        assertEquals("Game", find.getString("entity"));
+        assertEquals("findById", find.getString("operation"));
+        assertEquals(1, find.getInt("results"));
+    }
 }
@@ -0,0 +1,780 @@
+package it.polito.extgol.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IntSummaryStatistics;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.Attribute;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import jakarta.persistence.Persistence;
+import jakarta.persistence.PersistenceUtil;
+
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.ManagedEntity;
+import org.hibernate.engine.spi.SelfDirtinessTracker;
+import org.junit.AfterClass;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThrows;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import org.junit.Before;
+import org.junit.Test;
+
+import it.polito.extgol.BatchResult;
+import it.polito.extgol.Board;
+import it.polito.extgol.BoardRegion;
+import it.polito.extgol.Cell;
+import it.polito.extgol.CellType;
+import it.polito.extgol.Coord;
+import it.polito.extgol.EventType;
+import it.polito.extgol.ExtendedGameOfLife;
+import it.polito.extgol.Game;
+import it.polito.extgol.GameAnalytics;
+import it.polito.extgol.GameArchive;
+import it.polito.extgol.GameRepository;
+import it.polito.extgol.Generation;
+import it.polito.extgol.JPAUtil;
+import it.polito.extgol.LoadProfile;
+import it.polito.extgol.Tile;
+
+import static it.polito.extgol.test.TestBranchUtils.assumeBranch;
+
+public class ExtGOLR3GameTests {
+    private ExtendedGameOfLife facade;
+    private Game game;
+    private Board board;
+
+    /**
+     * Close JPA after all tests.
+     */
+    @AfterClass
+    public static void closeDB() {
+        JPAUtil.close();
+    }
+
+    /**
+     * Prepare a clean database and new game before each test.
+     */
+    @Before
+    public void setUp() {
+        TestDatabaseUtil.clearDatabase();
+        facade = new ExtendedGameOfLife();
+        game  = Game.createExtended("TestGame", 6, 6);
+        board = game.getBoard();
+    }
+
+    // R3 Game Extended Behaviors
+
+    @Test
+    public void testR3BloomGivesTwoLifePoints() {
+        assumeBranch("R3");
+        // Start with four alive cells
+        Generation.createInitial(game, board,
+            List.of(new Coord(1,1), new Coord(1,2), new Coord(2,1), new Coord(2,2))
+        );
+        
+        // Apply BLOOM at generation 0, then evolve one generation
+        Game result = facade.run(game, 1, Map.of(0, EventType.BLOOM));
+        Generation gen1 = result.getGenerations().get(1);
+
+        // Pick any alive cell and verify it gained exactly +3 lifePoints
+        Cell sample = facade.getAliveCells(gen1).get(new Coord(1,1));
+        int lp = gen1.getEnergyStates().get(sample);
+        assertEquals("Survival-maintaining conditions give +1, BLOOM should add +2 lifePoints", 3, lp);
+    }
+
+    @Test
+    public void testR3CataclysmResetsLifePointsToZero() {
+        assumeBranch("R3");
+        // Kick off with one alive cell and give it some energy first
+        Generation init = Generation.createInitial(game, board, List.of(new Coord(1,1)));
+        Cell c0 = board.getTile(new Coord(1,1)).getCell();
+        c0.setLifePoints(5);
+        init.snapCells();
+        
+        // Apply CATACLYSM at step 0, then evolve one generation
+        Game result = facade.run(game, 1, Map.of(0, EventType.CATACLYSM));
+        result.getGenerations().get(1);
+
+        int lp = c0.getLifePoints();
+        assertEquals("CATACLYSM should zero out lifePoints, and death should remove 1", -1, lp);
+    }
+
+    @Test
+    public void testR3FamineSubtractsOneLifePoint() {
+        assumeBranch("R3");
+        // Initialize with one alive cell and give it some energy
+        Generation init = Generation.createInitial(game, board, List.of(new Coord(1,1)));
+        Cell c0 = board.getTile(new Coord(1,1)).getCell();
+        c0.setLifePoints(5);
+        init.snapCells();
+        
+        // Apply FAMINE at step 0, then evolve one generation
+        Game result = facade.run(game, 1, Map.of(0, EventType.FAMINE));
+        result.getGenerations().get(1);
+
+        int lp=c0.getLifePoints();
+        assertEquals("FAMINE should subtract 1 lifePoint, and death another one", 3, lp);
+    }
+
+    @Test
+    public void testR3LoadRestoresSavedGame() {
+        assumeBranch("R3");
+        // Blinker: alternates between a horizontal and a vertical line
+        Generation.createInitial(game, board,
+            List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2))
+        );
+        facade.run(game, 2);
+        facade.saveGame(game);
+
+        Game loaded = new GameRepository().load(game.getId());
+        assertEquals(3, loaded.getGenerations().size());
+        Generation gen1 = loaded.getGenerations().get(1);
+        assertEquals(Set.of(new Coord(2,1), new Coord(2,2), new Coord(2,3)),
+            facade.getAliveCells(gen1).keySet());
+        int lp = gen1.getEnergyStates().get(facade.getAliveCells(gen1).get(new Coord(2,2)));
+        assertEquals(game.getGenerations().get(1).getEnergyStates().get(board.getTile(new Coord(2,2)).getCell()).intValue(), lp);
+
+        // tile neighbors are re-linked, so the loaded game can keep evolving
+        Cell center = loaded.getBoard().getTile(new Coord(2,2)).getCell();
+        assertEquals(8, center.getNeighbors().size());
+    }
+
+    @Test
+    public void testR3RunIsControllableOverJmx() throws Exception {
+        assumeBranch("R3");
+        Generation.createInitial(game, board,
+            List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2))
+        );
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName pattern = new ObjectName("it.polito.extgol:type=Simulation,game=\"TestGame\",*");
+        Thread runner = new Thread(() -> facade.run(game, 1_000_000));
+        runner.start();
+
+        ObjectName name = null;
+        for (int i = 0; i < 500 && name == null; i++) {
+            name = server.queryNames(pattern, null).stream().findFirst().orElse(null);
+            Thread.sleep(10);
+        }
+        assertTrue("Running simulation should be registered", name != null);
+        assertEquals(1_000_000, server.getAttribute(name, "TargetSteps"));
+
+        server.invoke(name, "pause", null, null);
+        Thread.sleep(50);
+        int paused = (Integer) server.getAttribute(name, "Step");
+        Thread.sleep(100);
+        assertEquals("Paused run should not advance", paused, server.getAttribute(name, "Step"));
+        assertEquals(paused + 1, server.getAttribute(name, "HistorySize"));
+        assertEquals(3, server.getAttribute(name, "Population"));
+
+        server.invoke(name, "throttle", new Object[] {200.0}, new String[] {"double"});
+        server.invoke(name, "resume", null, null);
+        Thread.sleep(100);
+        int throttled = (Integer) server.getAttribute(name, "Step") - paused;
+        assertTrue("Throttled run should advance slowly: " + throttled, throttled > 0 && throttled < 100);
+
+        server.invoke(name, "cancel", null, null);
+        runner.join(5000);
+        assertFalse("Cancelled run should return", runner.isAlive());
+        assertTrue(game.getGenerations().size() < 1_000_001);
+        assertFalse("Finished run should be unregistered", server.isRegistered(name));
+
+        // the persistence monitor appears with the EntityManagerFactory
+        Game small = Game.createExtended("Small", 3, 3);
+        facade.saveGame(small);
+        ObjectName persistence = new ObjectName("it.polito.extgol:type=Persistence");
+        server.setAttribute(persistence, new Attribute("StatisticsEnabled", true));
+        server.invoke(persistence, "clearStatistics", null, null);
+        facade.saveGame(small);
+        assertTrue((Long) server.getAttribute(persistence, "TransactionCount") > 0);
+        assertEquals(0L, server.getAttribute(persistence, "OpenEntityManagers"));
+        server.setAttribute(persistence, new Attribute("StatisticsEnabled", false));
+    }
+
+    @Test
+    public void testR3ConcurrentSavesSharePool() throws Exception {
+        assumeBranch("R3");
+        ExecutorService workers = Executors.newFixedThreadPool(8);
+        List<Future<Long>> saved = new ArrayList<>();
+        try {
+            for (int i = 0; i < 16; i++) {
+                String name = "Worker" + i;
+                saved.add(workers.submit(() -> {
+                    Game g = Game.createExtended(name, 4, 4);
+                    Generation.createInitial(g, g.getBoard(),
+                        List.of(new Coord(1,1), new Coord(1,2), new Coord(2,1), new Coord(2,2)));
+                    new ExtendedGameOfLife().run(g, 3);
+                    new ExtendedGameOfLife().saveGame(g);
+                    Game loaded = new GameRepository().load(g.getId());
+                    assertEquals(name, loaded.getName());
+                    assertEquals(4, loaded.getGenerations().size());
+                    return g.getId();
+                }));
+            }
+            Set<Long> ids = new HashSet<>();
+            for (Future<Long> f : saved) {
+                ids.add(f.get());
+            }
+            assertEquals("Every worker should save its own game", 16, ids.size());
+        } finally {
+            workers.shutdownNow();
+        }
+
+        // connections come from the pool and are all returned
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName persistence = new ObjectName("it.polito.extgol:type=Persistence");
+        assertEquals(10, server.getAttribute(persistence, "MaxConnections"));
+        assertEquals(0, server.getAttribute(persistence, "ActiveConnections"));
+    }
+
+    @Test
+    public void testR3SaveBatchesInserts() throws Exception {
+        assumeBranch("R3");
+        Game large = Game.createExtended("Large", 20, 20);
+        Generation.createInitial(large, large.getBoard(), List.of(new Coord(1,1), new Coord(1,2)));
+        facade.saveGame(Game.createExtended("Boot", 2, 2));
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName persistence = new ObjectName("it.polito.extgol:type=Persistence");
+        server.setAttribute(persistence, new Attribute("StatisticsEnabled", true));
+        server.invoke(persistence, "clearStatistics", null, null);
+        try {
+            facade.saveGame(large);
+            // game, board, generation, 400 tiles and 400 cells
+            assertEquals(803L, server.getAttribute(persistence, "EntityInsertCount"));
+            long statements = (Long) server.getAttribute(persistence, "PrepareStatementCount");
+            assertTrue("Inserts should be batched, prepared " + statements, statements < 100);
+        } finally {
+            server.setAttribute(persistence, new Attribute("StatisticsEnabled", false));
+        }
+    }
+
+    @Test
+    public void testR3SecondLevelCacheServesRepeatedReads() throws Exception {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,1)));
+        game.getEventMapInternal().put(0, EventType.BLOOM);
+        facade.saveGame(game);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName persistence = new ObjectName("it.polito.extgol:type=Persistence");
+        server.setAttribute(persistence, new Attribute("StatisticsEnabled", true));
+        server.invoke(persistence, "evictCaches", null, null);
+        server.invoke(persistence, "clearStatistics", null, null);
+        try {
+            GameRepository repository = new GameRepository();
+            for (int i = 0; i < 3; i++) {
+                Game found = repository.findById(game.getId()).orElseThrow();
+                assertEquals(Map.of(0, EventType.BLOOM), Game.loadEvents(found));
+                assertEquals(1, repository.findAll().size());
+                assertEquals(36, (int) JPAUtil.fromTransaction(
+                        em -> em.find(Game.class, game.getId()).getBoard().getTiles().size()));
+            }
+            assertTrue((Long) server.getAttribute(persistence, "SecondLevelCacheHitCount") >= 2);
+            assertEquals(2L, server.getAttribute(persistence, "QueryCacheHitCount"));
+            String region = (String) server.invoke(persistence, "describeCacheRegion",
+                new Object[] {"extgol.game"}, new String[] {String.class.getName()});
+            assertTrue("Game region should be hit: " + region, !region.startsWith("hits=0,"));
+            String tiles = (String) server.invoke(persistence, "describeCacheRegion",
+                new Object[] {"extgol.board.tiles"}, new String[] {String.class.getName()});
+            assertTrue("Tiles of the board should be hit: " + tiles, !tiles.startsWith("hits=0,"));
+
+            // a change to the table discards the cached query results
+            repository.update(repository.findById(game.getId()).orElseThrow());
+            Game other = Game.createExtended("Other", 2, 2);
+            facade.saveGame(other);
+            assertEquals(2, repository.findAll().size());
+        } finally {
+            server.setAttribute(persistence, new Attribute("StatisticsEnabled", false));
+        }
+    }
+
+    @Test
+    public void testR3RepositoryStreamsPagesAndProjects() {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,1), new Coord(4,2)));
+        facade.run(game, 2);
+        facade.saveGame(game);
+        for (int i = 0; i < 4; i++) {
+            facade.saveGame(Game.createExtended("Extra" + i, 2, 2));
+        }
+        GameRepository repository = new GameRepository();
+
+        List<String> streamed = new ArrayList<>();
+        assertEquals(5, repository.stream(g -> streamed.add(g.getName())));
+        assertEquals("TestGame", streamed.get(0));
+
+        // keyset pages cover every game exactly once, in id order
+        List<Long> paged = new ArrayList<>();
+        List<Game> page = repository.findPage(null, 2);
+        while (!page.isEmpty()) {
+            page.forEach(g -> paged.add(g.getId()));
+            page = repository.findPage(page.get(page.size() - 1).getId(), 2);
+        }
+        assertEquals(5, paged.size());
+        assertEquals(paged.stream().sorted().toList(), paged);
+
+        List<GameRepository.GameSummary> summaries = repository.findSummaries();
+        assertEquals(new GameRepository.GameSummary(game.getId(), "TestGame", 6, 6, 3), summaries.get(0));
+
+        List<GameRepository.CellState> cells = new ArrayList<>();
+        assertEquals(36, repository.streamCellStates(game.getId(), cells::add));
+        assertEquals(new Coord(0, 0), new Coord(cells.get(0).x(), cells.get(0).y()));
+        assertEquals(0, cells.stream().filter(GameRepository.CellState::alive).count());
+    }
+
+    @Test
+    public void testR3RepositoryBatchOperations() {
+        assumeBranch("R3");
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Game g = Game.createExtended("Batch" + i, 3, 3);
+            Generation.createInitial(g, g.getBoard(), List.of(new Coord(0,1), new Coord(1,1), new Coord(2,1)));
+            new ExtendedGameOfLife().run(g, 2);
+            games.add(g);
+        }
+        GameRepository repository = new GameRepository();
+
+        BatchResult created = repository.createAll(games, 4);
+        assertEquals(10, created.entities());
+        assertEquals("10 games in chunks of 4", 3, created.batches());
+        assertEquals(10, repository.findAll().size());
+
+        games.forEach(g -> g.setName(g.getName() + "-renamed"));
+        assertEquals(10, repository.updateAll(games).entities());
+        assertTrue(repository.findAll().stream().allMatch(g -> g.getName().endsWith("-renamed")));
+
+        // bulk deletion removes the whole aggregate of the selected games only
+        Game kept = games.get(0);
+        BatchResult deleted = repository.deleteAll(games.subList(1, games.size()));
+        assertEquals(9, deleted.entities());
+        assertEquals(List.of(kept.getId()), repository.findAll().stream().map(Game::getId).toList());
+        List<GameRepository.CellState> cells = new ArrayList<>();
+        assertEquals(9, repository.streamCellStates(kept.getId(), cells::add));
+        assertEquals(0, repository.streamCellStates(games.get(1).getId(), cells::add));
+        Game reloaded = repository.load(kept.getId());
+        assertEquals(3, reloaded.getGenerations().size());
+        assertEquals(3, facade.getAliveCells(reloaded.getGenerations().get(2)).size());
+
+        repository.delete(kept);
+        assertTrue(repository.findAll().isEmpty());
+    }
+
+    @Test
+    public void testR3UnitOfWorkSharesPersistenceContext() {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(0,1), new Coord(1,1), new Coord(2,1)));
+        facade.run(game, 2);
+        facade.saveGame(game);
+        GameRepository repository = new GameRepository();
+
+        JPAUtil.inTransaction(em -> {
+            assertTrue(JPAUtil.inUnitOfWork());
+            Game loaded = repository.load(game.getId());
+            assertTrue("load joins the unit", em.contains(loaded));
+            assertTrue("same context, same instance", loaded == repository.findById(game.getId()).get());
+            loaded.setName("Renamed");
+            facade.saveGame(loaded);
+        });
+        assertFalse(JPAUtil.inUnitOfWork());
+        assertEquals("Renamed", repository.findById(game.getId()).get().getName());
+
+        // a failing unit of work discards every change made within it
+        try {
+            JPAUtil.inTransaction(em -> {
+                Game loaded = repository.findById(game.getId()).get();
+                loaded.setName("Discarded");
+                repository.update(loaded);
+                throw new IllegalStateException("abort");
+            });
+        } catch (IllegalStateException expected) {
+            assertEquals("abort", expected.getMessage());
+        }
+        assertEquals("Renamed", repository.findById(game.getId()).get().getName());
+        assertEquals(3, repository.load(game.getId()).getGenerations().size());
+    }
+
+    @Test
+    public void testR3AsyncLoadsRunInParallel() throws Exception {
+        assumeBranch("R3");
+        List<CompletableFuture<Void>> saves = new ArrayList<>();
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Game g = Game.createExtended("Async" + i, 4, 4);
+            Generation.createInitial(g, g.getBoard(), List.of(new Coord(0,1), new Coord(1,1), new Coord(2,1)));
+            new ExtendedGameOfLife().run(g, i + 1);
+            games.add(g);
+            saves.add(facade.saveGameAsync(g));
+        }
+        CompletableFuture.allOf(saves.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+
+        GameRepository repository = new GameRepository();
+        CompletableFuture<Integer> generations = repository.loadAsync(games.get(0).getId())
+                .thenCombine(repository.loadAsync(games.get(3).getId()),
+                        (first, last) -> first.getGenerations().size() + last.getGenerations().size());
+        assertEquals("2 + 5 generations", 7, (int) generations.get(30, TimeUnit.SECONDS));
+        assertEquals(4, repository.findSummariesAsync().get(30, TimeUnit.SECONDS).size());
+        assertNull(repository.loadAsync(-1L).get(30, TimeUnit.SECONDS));
+
+        // a burst of tasks queues rather than starting a platform thread each
+        List<CompletableFuture<?>> burst = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            burst.add(repository.findByIdAsync(games.get(i % 4).getId()));
+        }
+        CompletableFuture.allOf(burst.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+        int connections = (Integer) ManagementFactory.getPlatformMBeanServer().getAttribute(
+                new ObjectName("it.polito.extgol:type=Persistence"), "MaxConnections");
+        long ioThreads = Thread.getAllStackTraces().keySet().stream()
+                .filter(t -> t.getName().startsWith("extgol-io-")).count();
+        assertTrue(ioThreads + " threads", ioThreads <= connections);
+
+        // failures complete the future exceptionally
+        Game duplicate = Game.createExtended("Async0", 2, 2);
+        try {
+            facade.saveGameAsync(duplicate).get(30, TimeUnit.SECONDS);
+            fail("names are unique");
+        } catch (ExecutionException expected) {
+            assertTrue(expected.getCause() instanceof RuntimeException);
+        }
+
+        BatchResult deleted = repository.deleteAllByIdAsync(games.stream().map(Game::getId).toList())
+                .get(30, TimeUnit.SECONDS);
+        assertEquals(4, deleted.entities());
+        assertTrue(repository.findAllAsync().get(30, TimeUnit.SECONDS).isEmpty());
+    }
+
+    @Test
+    public void testR3AnalyticsMatchLoadedGenerations() {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, Map.of(
+                new Coord(1,1), CellType.HIGHLANDER, new Coord(1,2), CellType.BASIC,
+                new Coord(2,1), CellType.LONER, new Coord(2,2), CellType.SOCIAL,
+                new Coord(4,4), CellType.BASIC, new Coord(4,5), CellType.BASIC, new Coord(5,4), CellType.LONER));
+        facade.run(game, 6, Map.of(2, EventType.BLOOM));
+        facade.saveGame(game);
+
+        GameAnalytics analytics = new GameAnalytics();
+        int[] population = analytics.populationByStep(game.getId());
+        GameAnalytics.EnergySeries energy = analytics.energyByStep(game.getId());
+        GameAnalytics.Turnover turnover = analytics.turnoverByStep(game.getId());
+        assertEquals(7, population.length);
+        assertEquals(7, energy.steps());
+        for (Generation gen : game.getGenerations()) {
+            int step = gen.getStep();
+            assertEquals(board.countCells(gen).intValue(), population[step]);
+            IntSummaryStatistics expected = board.energyStatistics(gen);
+            IntSummaryStatistics actual = energy.statistics(step);
+            assertEquals(expected.getCount(), actual.getCount());
+            assertEquals(expected.getSum(), actual.getSum());
+            assertEquals(expected.getMin(), actual.getMin());
+            assertEquals(expected.getMax(), actual.getMax());
+
+            int[] byType = analytics.countByTypeAtStep(game.getId(), step);
+            for (CellType type : CellType.values()) {
+                assertEquals(board.countCellsByType(gen).getOrDefault(type, 0).intValue(), byType[type.ordinal()]);
+            }
+            if (step > 0) {
+                Set<Coord> before = facade.getAliveCells(game.getGenerations().get(step - 1)).keySet();
+                Set<Coord> after = facade.getAliveCells(gen).keySet();
+                assertEquals(after.stream().filter(c -> !before.contains(c)).count(), turnover.births()[step]);
+                assertEquals(before.stream().filter(c -> !after.contains(c)).count(), turnover.deaths()[step]);
+            }
+        }
+        assertEquals(0, analytics.populationByStep(-1L).length);
+    }
+
+    @Test
+    public void testR3CellTimelineUsesIndexes() {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2)));
+        facade.run(game, 4, Map.of(1, EventType.BLOOM));
+        facade.saveGame(game);
+        GameRepository repository = new GameRepository();
+
+        GameRepository.CellTimeline timeline = repository.cellTimeline(game.getId(), 2, 1);
+        assertEquals(5, timeline.steps());
+        Cell cell = board.getTile(new Coord(2, 1)).getCell();
+        for (Generation gen : game.getGenerations()) {
+            assertEquals(gen.getCellAlivenessStates().get(cell), timeline.alive()[gen.getStep()]);
+            assertEquals(gen.getEnergyStates().get(cell).intValue(), timeline.lifePoints()[gen.getStep()]);
+        }
+        assertTrue("blinker: (2,1) alternates", timeline.alive()[1] && !timeline.alive()[2]);
+        assertEquals(0, repository.cellTimeline(game.getId(), 60, 60).steps());
+
+        @SuppressWarnings("unchecked")
+        List<String> indexes = JPAUtil.fromTransaction(em -> em.createNativeQuery(
+                "SELECT LOWER(INDEX_NAME) FROM INFORMATION_SCHEMA.INDEXES").getResultList());
+        for (String index : List.of("cell_coord_idx", "generation_state_cell_idx", "generation_energy_cell_idx")) {
+            assertTrue(index, indexes.contains(index));
+        }
+    }
+
+    @Test
+    public void testR3LoadRegionReadsOnlyTheViewport() throws Exception {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2), new Coord(5,5)));
+        facade.run(game, 3, Map.of(0, EventType.BLOOM));
+        facade.saveGame(game);
+        GameRepository repository = new GameRepository();
+        Generation gen = game.getGenerations().get(2);
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName persistence = new ObjectName("it.polito.extgol:type=Persistence");
+        server.setAttribute(persistence, new Attribute("StatisticsEnabled", true));
+        server.invoke(persistence, "clearStatistics", null, null);
+        BoardRegion region;
+        try {
+            region = repository.loadRegion(game.getId(), 2, 1, 1, 3, 2);
+            assertEquals("tiles and state, one query each", 2L, server.getAttribute(persistence, "PrepareStatementCount"));
+            assertEquals("only the 6 tiles and cells of the viewport", 12L, server.getAttribute(persistence, "EntityLoadCount"));
+        } finally {
+            server.setAttribute(persistence, new Attribute("StatisticsEnabled", false));
+        }
+        assertEquals(6, region.tiles().size());
+        for (int y = 1; y < 3; y++) {
+            for (int x = 1; x < 4; x++) {
+                Coord c = new Coord(x, y);
+                Cell cell = board.getTile(c).getCell();
+                assertEquals(cell.getType(), region.getTile(c).getCell().getType());
+                assertEquals(gen.getCellAlivenessStates().get(cell), region.isAlive(c));
+                assertEquals(gen.getEnergyStates().get(cell).intValue(), region.getLifePoints(c));
+            }
+        }
+        assertEquals("blinker is back to horizontal at step 2", 3, region.countAlive());
+
+        // clipped by the board edge
+        BoardRegion corner = repository.loadRegion(game.getId(), 0, 4, 4, 4, 4);
+        assertEquals(4, corner.tiles().size());
+        assertTrue(corner.isAlive(new Coord(5, 5)));
+        assertFalse(corner.isAlive(new Coord(7, 7)));
+        assertTrue(repository.loadRegion(game.getId(), 9, 0, 0, 2, 2).countAlive() == 0);
+    }
+
+    @Test
+    public void testR3LoadProfilesFetchOnlyWhatTheyCover() throws Exception {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2)));
+        game.getEventMapInternal().put(1, EventType.BLOOM);
+        facade.run(game, 3);
+        board.getTile(new Coord(0, 0)).setLifePointModifier(2);
+        facade.saveGame(game);
+        GameRepository repository = new GameRepository();
+        PersistenceUtil util = Persistence.getPersistenceUtil();
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName persistence = new ObjectName("it.polito.extgol:type=Persistence");
+        server.setAttribute(persistence, new Attribute("StatisticsEnabled", true));
+        Map<LoadProfile, Long> statements = new HashMap<>();
+        Map<LoadProfile, Game> loaded = new HashMap<>();
+        try {
+            for (LoadProfile profile : LoadProfile.values()) {
+                server.invoke(persistence, "evictCaches", null, null);
+                server.invoke(persistence, "clearStatistics", null, null);
+                loaded.put(profile, repository.load(game.getId(), profile));
+                statements.put(profile, (Long) server.getAttribute(persistence, "PrepareStatementCount"));
+            }
+        } finally {
+            server.setAttribute(persistence, new Attribute("StatisticsEnabled", false));
+        }
+        assertEquals(Map.of(LoadProfile.HEADER, 1L, LoadProfile.TOPOLOGY, 1L,
+                LoadProfile.CURRENT_STATE, 4L, LoadProfile.FULL_HISTORY, 4L), statements);
+
+        Game header = loaded.get(LoadProfile.HEADER);
+        assertEquals("TestGame", header.getName());
+        assertEquals(6, header.getBoard().getWidth());
+        assertEquals(Map.of(1, EventType.BLOOM), header.getEventMapInternal());
+        assertFalse(util.isLoaded(header.getBoard(), "tiles"));
+        assertFalse(util.isLoaded(header, "generations"));
+
+        Game topology = loaded.get(LoadProfile.TOPOLOGY);
+        Tile corner = topology.getBoard().getTile(new Coord(0, 0));
+        assertEquals(2, corner.getLifePointModifier().intValue());
+        assertEquals(3, corner.getNeighbors().size());
+        assertFalse(util.isLoaded(corner, "cell"));
+
+        Game current = loaded.get(LoadProfile.CURRENT_STATE);
+        List<Generation> generations = current.getGenerations();
+        assertEquals(4, generations.size());
+        assertTrue(util.isLoaded(generations.get(3), "cellAlivenessStates"));
+        assertTrue(util.isLoaded(generations.get(3), "cellEnergyStates"));
+        assertFalse(util.isLoaded(generations.get(0), "cellAlivenessStates"));
+        assertEquals(3, facade.getAliveCells(generations.get(3)).size());
+
+        Game full = loaded.get(LoadProfile.FULL_HISTORY);
+        assertTrue(full.getGenerations().stream().allMatch(g -> util.isLoaded(g, "cellEnergyStates")));
+        assertEquals(3, facade.getAliveCells(full.getGenerations().get(0)).size());
+    }
+
+    @Test
+    public void testR3SavedEventSkipsUnloadedParts() throws Exception {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2)));
+        facade.run(game, 2);
+        facade.saveGame(game);
+        Game header = new GameRepository().load(game.getId(), LoadProfile.HEADER);
+        Path dump = Files.createTempFile("saved", ".jfr");
+
+        try (Recording recording = new Recording()) {
+            recording.enable("it.polito.extgol.GameSaved");
+            recording.start();
+            facade.saveGame(header);
+            recording.stop();
+            recording.dump(dump);
+            RecordedEvent saved = RecordingFile.readAllEvents(dump).get(0);
+            assertEquals(game.getId().longValue(), saved.getLong("gameId"));
+            assertTrue(saved.getBoolean("succeeded"));
+            assertEquals(-1, saved.getInt("generations"));
+            assertEquals(-1L, saved.getLong("rows"));
+        } finally {
+            Files.delete(dump);
+        }
+        assertEquals(3, new GameRepository().load(game.getId(), LoadProfile.FULL_HISTORY).getGenerations().size());
+    }
+
+    @Test
+    public void testR3FlushUpdatesOnlyModifiedCells() throws Exception {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2)));
+        facade.run(game, 2);
+        facade.saveGame(game);
+        // set by the enhance profile, whose entity classes track their own changes
+        boolean enhanced = Boolean.getBoolean("extgol.enhanced");
+        if (enhanced) {
+            assertTrue(SelfDirtinessTracker.class.isAssignableFrom(Cell.class));
+            assertTrue(ManagedEntity.class.isAssignableFrom(Cell.class));
+        }
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName persistence = new ObjectName("it.polito.extgol:type=Persistence");
+        server.setAttribute(persistence, new Attribute("StatisticsEnabled", true));
+        long updates;
+        try {
+            JPAUtil.inTransaction(em -> {
+                Game managed = em.find(Game.class, game.getId());
+                for (Tile tile : managed.getBoard().getTiles()) {
+                    tile.getCell().getLifePoints();
+                }
+                em.flush();
+                try {
+                    server.invoke(persistence, "clearStatistics", null, null);
+                } catch (Exception e) {
+                    throw new IllegalStateException(e);
+                }
+                Cell modified = managed.getBoard().getTile(new Coord(4, 4)).getCell();
+                Cell untouched = managed.getBoard().getTile(new Coord(3, 3)).getCell();
+                modified.setLifePoints(7);
+                managed.getBoard().getTile(new Coord(5, 5)).getCell().setLifePoints(9);
+                if (enhanced) {
+                    SelfDirtinessTracker tracker = (SelfDirtinessTracker) Hibernate.unproxy(modified);
+                    assertArrayEquals(new String[] {"lifepoints"}, tracker.$$_hibernate_getDirtyAttributes());
+                    assertFalse(((SelfDirtinessTracker) Hibernate.unproxy(untouched)).$$_hibernate_hasDirtyAttributes());
+                }
+                em.flush();
+            });
+            updates = (Long) server.getAttribute(persistence, "EntityUpdateCount");
+        } finally {
+            server.setAttribute(persistence, new Attribute("StatisticsEnabled", false));
+        }
+        assertEquals(2, updates);
+
+        Board stored = new GameRepository().load(game.getId()).getBoard();
+        assertEquals(7, stored.getTile(new Coord(4, 4)).getCell().getLifePoints());
+        assertEquals(9, stored.getTile(new Coord(5, 5)).getCell().getLifePoints());
+        assertEquals(board.getTile(new Coord(3, 3)).getCell().getLifePoints(),
+                stored.getTile(new Coord(3, 3)).getCell().getLifePoints());
+    }
+
+    @Test
+    public void testR3ArchiveRoundTripsAGame() throws Exception {
+        assumeBranch("R3");
+        Generation.createInitial(game, board, List.of(new Coord(1,2), new Coord(2,2), new Coord(3,2)));
+        board.getTile(new Coord(0, 0)).setLifePointModifier(2);
+        facade.run(game, 3, Map.of(1, EventType.BLOOM));
+        facade.saveGame(game);
+
+        GameArchive archive = new GameArchive(7);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long rows = archive.exportGame(game.getId(), out);
+        assertTrue(rows > 36 * 2 * 4);
+        Long copyId = archive.importGame(new ByteArrayInputStream(out.toByteArray()), "Copy");
+        assertNotEquals(game.getId(), copyId);
+
+        GameRepository repository = new GameRepository();
+        Game original = repository.load(game.getId());
+        Game copy = repository.load(copyId);
+        assertEquals("Copy", copy.getName());
+        assertEquals(original.getEventMapInternal(), copy.getEventMapInternal());
+        assertEquals(2, copy.getBoard().getTile(new Coord(0, 0)).getLifePointModifier().intValue());
+        assertEquals(snapshot(original), snapshot(copy));
+        assertEquals(2, repository.findAll().size());
+        // imported identifiers came from the same generators as Hibernate's
+        facade.saveGame(Game.createExtended("After", 6, 6));
+        assertEquals(3, repository.findAll().size());
+
+        // 1600 cells span more than one block of cell identifiers
+        Game large = Game.createExtended("Large", 40, 40);
+        Generation.createInitial(large, large.getBoard(), List.of(new Coord(39,38), new Coord(39,39), new Coord(38,39)));
+        facade.run(large, 2);
+        facade.saveGame(large);
+        out.reset();
+        archive.exportGame(large.getId(), out);
+        Long largeCopyId = archive.importGame(new ByteArrayInputStream(out.toByteArray()), "LargeCopy");
+        assertEquals(snapshot(repository.load(large.getId())), snapshot(repository.load(largeCopyId)));
+
+        assertThrows(IOException.class,
+                () -> archive.importGame(new ByteArrayInputStream(new byte[] {1, 2, 3, 4, 5, 6, 7, 8})));
+        assertThrows(IllegalArgumentException.class,
+                () -> archive.exportGame(-1L, new ByteArrayOutputStream()));
+    }
+
+    /**
+     * Describes every cell of every generation of a game by step and
+     * coordinates, so that two copies of a game compare equal whatever their
+     * identifiers. The history must have no gaps and be in step order.
+     */
+    private static Map<Integer, Map<Coord, String>> snapshot(Game g) {
+        Map<Integer, Map<Coord, String>> steps = new TreeMap<>();
+        List<Generation> generations = g.getGenerations();
+        for (int i = 0; i < generations.size(); i++) {
+            Generation gen = generations.get(i);
+            assertNotNull("gap at generation_index " + i, gen);
+            assertEquals("generation_index " + i, i, gen.getStep());
+            Map<Coord, String> cells = new HashMap<>();
+            for (Map.Entry<Cell, Boolean> e : gen.getCellAlivenessStates().entrySet()) {
+                Cell c = e.getKey();
+                cells.put(new Coord(c.getX(), c.getY()), c.getClass().getSimpleName() + " " + c.getType()
+                        + " " + e.getValue() + " " + gen.getEnergyStates().get(c));
+            }
+            steps.put(gen.getStep(), cells);
+        }
+        return steps;
+    }
+}